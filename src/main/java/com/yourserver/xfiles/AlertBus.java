@@ -0,0 +1,147 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+// Оповещения о реакторах и аномалиях. Вызовы за тик ставятся в очередь и рассылаются в конце
+// тика: каждый игрок получает все свои строки одним вызовом. Оповещение доходит только до
+// игроков в мире источника и ближе заданного радиуса. Повторы того же ключа в окне
+// alerts.dedupe-window не рассылаются, а сворачиваются в одну строку со счётчиком в конце окна.
+public class AlertBus {
+
+    private static final class Alert {
+        final String key;
+        String message;
+        World world;        // null - весь сервер
+        double x, y, z;
+        double radius;      // 0 - весь мир источника
+        long windowEnd;
+        int repeats;        // подавлено в текущем окне
+        String line;        // строка к отправке в этом тике
+
+        Alert(String key) {
+            this.key = key;
+        }
+    }
+
+    private final XFilesPlugin plugin;
+    private final Map<String, Alert> alerts = new HashMap<>();
+    private final List<Alert> outgoing = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>();
+    private long tick;
+
+    public AlertBus(XFilesPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    // Оповещение всему серверу
+    public void post(String key, String message) {
+        post(key, message, null, 0.0);
+    }
+
+    // Оповещение игрокам мира источника ближе radius блоков (0 - всему миру)
+    public void post(String key, String message, Location source, double radius) {
+        Alert alert = alerts.get(key);
+        if (alert != null && tick < alert.windowEnd) {
+            // Повтор в окне: запоминаем последний текст и место, рассылка - в конце окна
+            alert.repeats++;
+            alert.message = message;
+            locate(alert, source, radius);
+            return;
+        }
+
+        if (alert == null) {
+            alert = new Alert(key);
+            alerts.put(key, alert);
+        }
+        alert.message = message;
+        alert.repeats = 0;
+        alert.windowEnd = tick + plugin.getConfigManager().getSettings().alertDedupeWindow;
+        locate(alert, source, radius);
+        queue(alert, message);
+    }
+
+    // Вызывается раз в тик из основного потока
+    public void flush() {
+        tick++;
+        if (alerts.isEmpty()) return;
+
+        // Закрываем окна: повторы сворачиваются в строку со счётчиком, окно продлевается
+        long window = plugin.getConfigManager().getSettings().alertDedupeWindow;
+        Iterator<Alert> it = alerts.values().iterator();
+        while (it.hasNext()) {
+            Alert alert = it.next();
+            if (tick < alert.windowEnd) continue;
+            if (alert.repeats == 0) {
+                if (alert.line == null) it.remove();
+                continue;
+            }
+            queue(alert, alert.message + " " + plugin.getConfigManager().getTemplate(Messages.ALERT_REPEATED)
+                .render(alert.repeats, (window + 19) / 20));
+            alert.repeats = 0;
+            alert.windowEnd = tick + window;
+        }
+
+        if (!outgoing.isEmpty()) {
+            deliver();
+        }
+    }
+
+    public void clear() {
+        alerts.clear();
+        outgoing.clear();
+        lines.clear();
+    }
+
+    private void deliver() {
+        long sent = 0;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location at = null;
+            for (int i = 0; i < outgoing.size(); i++) {
+                Alert alert = outgoing.get(i);
+                if (alert.world != null) {
+                    if (at == null) at = player.getLocation();
+                    if (at.getWorld() != alert.world) continue;
+                    if (alert.radius > 0) {
+                        double dx = at.getX() - alert.x;
+                        double dy = at.getY() - alert.y;
+                        double dz = at.getZ() - alert.z;
+                        if (dx * dx + dy * dy + dz * dz > alert.radius * alert.radius) continue;
+                    }
+                }
+                lines.add(alert.line);
+            }
+            if (lines.isEmpty()) continue;
+            player.sendMessage(lines.toArray(new String[0]));
+            sent += lines.size();
+            lines.clear();
+        }
+        plugin.getMetrics().count(Metrics.MESSAGES_SENT, sent);
+
+        for (Alert alert : outgoing) {
+            alert.line = null;
+        }
+        outgoing.clear();
+    }
+
+    private void queue(Alert alert, String line) {
+        if (alert.line == null) outgoing.add(alert);
+        alert.line = line;
+    }
+
+    private static void locate(Alert alert, Location source, double radius) {
+        if (source == null) {
+            alert.world = null;
+            return;
+        }
+        alert.world = source.getWorld();
+        alert.x = source.getX();
+        alert.y = source.getY();
+        alert.z = source.getZ();
+        alert.radius = radius;
+    }
+}
@@ -0,0 +1,188 @@
+package com.yourserver.xfiles;
+
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+
+import java.util.*;
+
+// Пространственный индекс аномалий: мир -> ячейка (упакованные координаты) -> аномалии.
+// Размер ячейки - степень двойки не меньше чанка и не меньше радиуса воздействия,
+// поэтому для любой точки достаточно проверить соседние 3x3 ячейки.
+// Массивы ячеек не изменяются после записи, поэтому снимок индекса для рабочих потоков -
+// это поверхностная копия таблиц, которая пересобирается только после изменений.
+public class AnomalyIndex {
+
+    private static final int MIN_CELL_SHIFT = 4; // 16 блоков - один чанк
+    private static final Anomaly[] EMPTY = new Anomaly[0];
+
+    // Неизменяемый снимок индекса; безопасен для чтения из любого потока
+    public static final class View {
+        private final Map<UUID, LongHashMap<Anomaly[]>> worlds;
+        private final int cellShift;
+
+        private View(Map<UUID, LongHashMap<Anomaly[]>> worlds, int cellShift) {
+            this.worlds = worlds;
+            this.cellShift = cellShift;
+        }
+
+        // Возвращает число проверенных аномалий-кандидатов
+        public int query(UUID worldId, double x, double y, double z, List<Anomaly> out) {
+            return AnomalyIndex.query(worlds.get(worldId), cellShift, x, y, z, out);
+        }
+    }
+
+    private final Map<UUID, LongHashMap<Anomaly[]>> worlds;
+    private int cellShift;
+    private int size;
+    private View view;
+
+    public AnomalyIndex(int effectRadius) {
+        this.worlds = new HashMap<>();
+        this.cellShift = shiftFor(effectRadius);
+    }
+
+    static int shiftFor(int radius) {
+        int shift = MIN_CELL_SHIFT;
+        while ((1 << shift) < radius && shift < 30) {
+            shift++;
+        }
+        return shift;
+    }
+
+    static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    public int getCellSize() {
+        return 1 << cellShift;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(Anomaly anomaly) {
+        // Аномалия с радиусом больше ячейки (например, после перезагрузки конфига)
+        // не поместится в окрестность 3x3 - укрупняем ячейки
+        if (anomaly.radius > getCellSize()) {
+            rebuild(shiftFor(anomaly.radius));
+        }
+
+        LongHashMap<Anomaly[]> cells = worlds.computeIfAbsent(anomaly.location.getWorld().getUID(), k -> new LongHashMap<>());
+        long key = keyOf(anomaly);
+        Anomaly[] cell = cells.get(key);
+        if (cell == null) cell = EMPTY;
+
+        Anomaly[] grown = Arrays.copyOf(cell, cell.length + 1);
+        grown[cell.length] = anomaly;
+        cells.put(key, grown);
+        size++;
+        view = null;
+    }
+
+    public boolean remove(Anomaly anomaly) {
+        UUID worldId = anomaly.location.getWorld().getUID();
+        LongHashMap<Anomaly[]> cells = worlds.get(worldId);
+        if (cells == null) return false;
+
+        long key = keyOf(anomaly);
+        Anomaly[] cell = cells.get(key);
+        if (cell == null) return false;
+
+        int pos = -1;
+        for (int i = 0; i < cell.length; i++) {
+            if (cell[i] == anomaly) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) return false;
+
+        if (cell.length == 1) {
+            cells.remove(key);
+            if (cells.isEmpty()) {
+                worlds.remove(worldId);
+            }
+        } else {
+            Anomaly[] shrunk = new Anomaly[cell.length - 1];
+            System.arraycopy(cell, 0, shrunk, 0, pos);
+            System.arraycopy(cell, pos + 1, shrunk, pos, cell.length - pos - 1);
+            cells.put(key, shrunk);
+        }
+        size--;
+        view = null;
+        return true;
+    }
+
+    public void clear() {
+        worlds.clear();
+        size = 0;
+        view = null;
+    }
+
+    // Собирает в out все аномалии, в радиусе которых находится точка. Не выделяет память,
+    // если out уже имеет достаточную ёмкость.
+    public int query(UUID worldId, double x, double y, double z, List<Anomaly> out) {
+        return query(worlds.get(worldId), cellShift, x, y, z, out);
+    }
+
+    // Снимок текущего состояния; пересобирается только если индекс менялся
+    public View snapshot() {
+        if (view == null) {
+            Map<UUID, LongHashMap<Anomaly[]>> copy = new HashMap<>();
+            for (Map.Entry<UUID, LongHashMap<Anomaly[]>> entry : worlds.entrySet()) {
+                copy.put(entry.getKey(), new LongHashMap<>(entry.getValue()));
+            }
+            view = new View(copy, cellShift);
+        }
+        return view;
+    }
+
+    private static int query(LongHashMap<Anomaly[]> cells, int cellShift,
+                             double x, double y, double z, List<Anomaly> out) {
+        if (cells == null) return 0;
+
+        int cellX = (int) Math.floor(x) >> cellShift;
+        int cellZ = (int) Math.floor(z) >> cellShift;
+        int tested = 0;
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                Anomaly[] cell = cells.get(cellKey(cellX + dx, cellZ + dz));
+                if (cell == null) continue;
+                tested += cell.length;
+
+                for (Anomaly anomaly : cell) {
+                    double ax = anomaly.location.getX() - x;
+                    double ay = anomaly.location.getY() - y;
+                    double az = anomaly.location.getZ() - z;
+                    if (ax * ax + ay * ay + az * az <= anomaly.radiusSquared) {
+                        out.add(anomaly);
+                    }
+                }
+            }
+        }
+        return tested;
+    }
+
+    private long keyOf(Anomaly anomaly) {
+        return cellKey(anomaly.location.getBlockX() >> cellShift, anomaly.location.getBlockZ() >> cellShift);
+    }
+
+    private void rebuild(int newShift) {
+        List<Anomaly> all = new ArrayList<>(size);
+        for (LongHashMap<Anomaly[]> cells : worlds.values()) {
+            for (int i = 0; i < cells.capacity(); i++) {
+                Anomaly[] cell = cells.valueAt(i);
+                if (cell != null) {
+                    Collections.addAll(all, cell);
+                }
+            }
+        }
+
+        clear();
+        cellShift = newShift;
+        for (Anomaly anomaly : all) {
+            add(anomaly);
+        }
+    }
+}
@@ -2,9 +2,6 @@ package com.yourserver.xfiles;
 
 import org.bukkit.*;
 import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
 
@@ -12,30 +9,42 @@ public class AnomalyManager {
     
     private final XFilesPlugin plugin;
     private final ConfigManager config;
+    private final ExpiryWheel expiryWheel;
     private final Map<String, Anomaly> anomalies;
+    private final AnomalyIndex index;
     private final Random random;
     private int nextId = 1;
     
     public AnomalyManager(XFilesPlugin plugin) {
         this.plugin = plugin;
         this.config = plugin.getConfigManager();
+        this.expiryWheel = plugin.getExpiryWheel();
         this.anomalies = new HashMap<>();
+        this.index = new AnomalyIndex(config.getAnomalyEffectRadius());
         this.random = new Random();
     }
     
     public static class Anomaly {
         public String id;
-        public String type;
+        public AnomalyType type;
         public Location location;
         public int radius;
+        public double radiusSquared;
         public long createdTime;
         public long duration;
+        public ExpiryWheel.Timeout expiry;
         
-        public Anomaly(String id, String type, Location location, int radius, long duration) {
+        public Anomaly(String id, AnomalyType type, Location location, int radius, long duration) {
+            this(id, type, location, radius, (double) radius * radius, duration);
+        }
+        
+        // Квадрат радиуса берётся из снимка настроек, а не считается на каждую аномалию
+        public Anomaly(String id, AnomalyType type, Location location, int radius, double radiusSquared, long duration) {
             this.id = id;
             this.type = type;
             this.location = location;
             this.radius = radius;
+            this.radiusSquared = radiusSquared;
             this.createdTime = System.currentTimeMillis();
             this.duration = duration;
         }
@@ -45,127 +54,158 @@ public class AnomalyManager {
         }
     }
     
-    public String createAnomaly(String type, Location location) {
-        if (anomalies.size() >= config.getMaxAnomalies()) {
+    public String createAnomaly(AnomalyType type, Location location) {
+        XFilesSettings settings = config.getSettings();
+        if (anomalies.size() >= settings.maxAnomalies) {
             return null;
         }
         
+        FlightEvents.AnomalyCreate event = new FlightEvents.AnomalyCreate();
+        event.begin();
         String id = "anomaly-" + nextId++;
-        int radius = config.getAnomalyEffectRadius();
-        long duration = config.getAnomalyDuration() * 50L; // Конвертируем в миллисекунды
+        int radius = settings.anomalyEffectRadius;
+        long duration = settings.anomalyDuration * 50L; // Конвертируем в миллисекунды
         
-        Anomaly anomaly = new Anomaly(id, type, location, radius, duration);
+        Anomaly anomaly = new Anomaly(id, type, location, radius, settings.anomalyEffectRadiusSquared, duration);
         anomalies.put(id, anomaly);
+        index.add(anomaly);
+        plugin.getPersistence().anomalyCreated(anomaly);
+        plugin.getMovementRecorder().anomalyCreated(anomaly);
         
         // Визуальные эффекты
-        spawnAnomalyEffects(anomaly);
+        type.spawn(plugin.getEffectEmitter(), location);
         
         // Автоматическое удаление
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (anomalies.containsKey(id)) {
-                    removeAnomaly(id);
-                }
-            }
-        }.runTaskLater(plugin, config.getAnomalyDuration());
+        anomaly.expiry = expiryWheel.schedule(settings.anomalyDuration, () -> removeAnomaly(id, true));
         
+        event.end();
+        if (event.shouldCommit()) {
+            event.anomalyId = id;
+            event.anomalyType = type.name;
+            event.radius = radius;
+            event.world = location.getWorld().getName();
+            event.x = location.getBlockX();
+            event.y = location.getBlockY();
+            event.z = location.getBlockZ();
+            event.activeAnomalies = anomalies.size();
+            event.commit();
+        }
         return id;
     }
     
-    private void spawnAnomalyEffects(Anomaly anomaly) {
-        Location loc = anomaly.location;
-        World world = loc.getWorld();
+    // Аномалия из сохранённого состояния; срок жизни продолжает отсчитываться от создания
+    public boolean restoreAnomaly(String id, String typeName, Location location, int radius,
+                                  long createdTime, long duration) {
+        AnomalyType type = config.getAnomalyType(typeName);
+        if (type == null || anomalies.containsKey(id)) return false;
         
-        switch (anomaly.type) {
-            case "GRAVITATIONAL":
-                world.spawnParticle(Particle.REVERSE_PORTAL, loc, 100, 3, 3, 3);
-                world.playSound(loc, Sound.BLOCK_PORTAL_AMBIENT, 1.0f, 0.5f);
-                break;
-            case "RADIATION":
-                world.spawnParticle(Particle.ASH, loc, 50, 5, 5, 5);
-                world.playSound(loc, Sound.BLOCK_BELL_USE, 1.0f, 0.1f);
-                break;
-            case "TEMPORAL":
-                world.spawnParticle(Particle.ELECTRIC_SPARK, loc, 30, 2, 2, 2);
-                world.playSound(loc, Sound.BLOCK_CONDUIT_AMBIENT, 1.0f, 2.0f);
-                break;
-            case "BIOLOGICAL":
-                world.spawnParticle(Particle.HAPPY_VILLAGER, loc, 40, 3, 3, 3);
-                world.playSound(loc, Sound.ENTITY_ZOMBIE_VILLAGER_CURE, 1.0f, 0.5f);
-                break;
-            case "PSYCHIC":
-                world.spawnParticle(Particle.SOUL_FIRE_FLAME, loc, 30, 2, 2, 2);
-                world.playSound(loc, Sound.ENTITY_ENDERMAN_STARE, 1.0f, 0.5f);
-                break;
-            default:
-                world.spawnParticle(Particle.PORTAL, loc, 50, 3, 3, 3);
-                world.playSound(loc, Sound.BLOCK_PORTAL_TRIGGER, 1.0f, 1.0f);
+        Anomaly anomaly = new Anomaly(id, type, location, radius, duration);
+        anomaly.createdTime = createdTime;
+        anomalies.put(id, anomaly);
+        index.add(anomaly);
+        long remainingTicks = (createdTime + duration - System.currentTimeMillis()) / 50L;
+        anomaly.expiry = expiryWheel.schedule(remainingTicks, () -> removeAnomaly(id, true));
+        
+        // Новые идентификаторы не должны совпасть с восстановленными
+        if (id.startsWith("anomaly-")) {
+            try {
+                nextId = Math.max(nextId, Integer.parseInt(id.substring("anomaly-".length())) + 1);
+            } catch (NumberFormatException ignored) {
+            }
         }
+        return true;
     }
     
-    public void checkAnomalyEffects(Player player, Location location) {
+    public void persistAll(PersistenceManager persistence) {
         for (Anomaly anomaly : anomalies.values()) {
-            if (location.distance(anomaly.location) <= anomaly.radius) {
-                applyAnomalyEffect(player, anomaly);
-            }
+            persistence.anomalyCreated(anomaly);
         }
     }
     
-    private void applyAnomalyEffect(Player player, Anomaly anomaly) {
-        switch (anomaly.type) {
-            case "GRAVITATIONAL":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.LEVITATION, 100, 1));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.SLOW_FALLING, 100, 0));
-                break;
-            case "RADIATION":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.POISON, 100, 1));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.NAUSEA, 100, 0));
-                plugin.getRadiationManager().exposeToRadiation(player, 10);
-                break;
-            case "TEMPORAL":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.SPEED, 100, 2));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.SLOWNESS, 100, 2));
-                break;
-            case "BIOLOGICAL":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.REGENERATION, 100, 1));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.WITHER, 100, 0));
-                break;
-            case "PSYCHIC":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 100, 0));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.DARKNESS, 200, 0));
-                break;
-            case "ELECTROMAGNETIC":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.GLOWING, 100, 0));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.SLOWNESS, 100, 1));
-                break;
-            case "QUANTUM":
-                player.addPotionEffect(new PotionEffect(PotionEffectType.LEVITATION, 60, 0));
-                player.addPotionEffect(new PotionEffect(PotionEffectType.CONDUIT_POWER, 100, 0));
-                break;
+    public void recordAll(MovementRecorder recorder) {
+        for (Anomaly anomaly : anomalies.values()) {
+            recorder.anomalyCreated(anomaly);
         }
+    }
+    
+    // Индекс для поиска аномалий рядом с точкой (только соседние ячейки)
+    public AnomalyIndex getIndex() {
+        return index;
+    }
+    
+    public boolean isActive(Anomaly anomaly) {
+        return anomalies.get(anomaly.id) == anomaly;
+    }
+    
+    // Вход в зону аномалии: эффекты и однократное сообщение
+    public void enterAnomaly(Player player, Anomaly anomaly) {
+        applyAnomalyEffect(player, anomaly, true);
         
         // Сообщение игроку
-        String message = config.getMessage("anomaly-effects." + anomaly.type.toLowerCase() + ".message");
-        player.sendMessage(message);
+        anomaly.type.message.send(player);
+        plugin.getMetrics().count(Metrics.MESSAGES_SENT, 1);
+    }
+    
+    // Пребывание в зоне аномалии: только продление эффектов
+    public void refreshAnomaly(Player player, Anomaly anomaly) {
+        applyAnomalyEffect(player, anomaly, false);
+    }
+    
+    private void applyAnomalyEffect(Player player, Anomaly anomaly, boolean entered) {
+        FlightEvents.AnomalyApply event = new FlightEvents.AnomalyApply();
+        event.begin();
+        // Эффекты общие для всех игроков и созданы при загрузке типа
+        anomaly.type.apply(player);
+        if (anomaly.type.radiation > 0) {
+            plugin.getRadiationManager().exposeToRadiation(player, anomaly.type.radiation);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.anomalyId = anomaly.id;
+            event.anomalyType = anomaly.type.name;
+            event.player = player.getName();
+            event.entered = entered;
+            event.commit();
+        }
     }
     
     public boolean removeAnomaly(String id) {
+        return removeAnomaly(id, false);
+    }
+    
+    private boolean removeAnomaly(String id, boolean expired) {
         if (anomalies.containsKey(id)) {
+            FlightEvents.AnomalyRemove event = new FlightEvents.AnomalyRemove();
+            event.begin();
             Anomaly anomaly = anomalies.remove(id);
+            index.remove(anomaly);
+            expiryWheel.cancel(anomaly.expiry);
+            plugin.getPersistence().anomalyRemoved(id);
+            plugin.getMovementRecorder().anomalyRemoved(id);
             // Эффект исчезновения
-            anomaly.location.getWorld().spawnParticle(Particle.CLOUD, anomaly.location, 20);
-            anomaly.location.getWorld().playSound(anomaly.location, Sound.BLOCK_FIRE_EXTINGUISH, 1.0f, 1.0f);
+            EffectEmitter emitter = plugin.getEffectEmitter();
+            emitter.particle(anomaly.location, Particle.CLOUD, 20, 0, true);
+            emitter.sound(anomaly.location, Sound.BLOCK_FIRE_EXTINGUISH, 1.0f, 1.0f, true);
+            event.end();
+            if (event.shouldCommit()) {
+                event.anomalyId = id;
+                event.anomalyType = anomaly.type.name;
+                event.expired = expired;
+                event.activeAnomalies = anomalies.size();
+                event.commit();
+            }
             return true;
         }
         return false;
     }
     
     public void cleanup() {
-        for (Anomaly anomaly : anomalies.values()) {
-            removeAnomaly(anomaly.id);
+        // Копия ключей: removeAnomaly изменяет карту во время обхода
+        for (String id : new ArrayList<>(anomalies.keySet())) {
+            removeAnomaly(id);
         }
         anomalies.clear();
+        index.clear();
     }
     
     public boolean handleCommand(Player player, String[] args) {
@@ -198,9 +238,9 @@ public class AnomalyManager {
             return true;
         }
         
-        String type = args[1].toUpperCase();
-        if (!config.getAnomalyTypes().contains(type)) {
-            player.sendMessage(ChatColor.RED + "Неизвестный тип аномалии: " + type);
+        AnomalyType type = config.getAnomalyType(args[1].toUpperCase());
+        if (type == null) {
+            player.sendMessage(ChatColor.RED + "Неизвестный тип аномалии: " + args[1].toUpperCase());
             player.sendMessage(ChatColor.YELLOW + "Доступные типы: " + 
                              String.join(", ", config.getAnomalyTypes()));
             return true;
@@ -213,12 +253,8 @@ public class AnomalyManager {
         }
         
         Location loc = player.getLocation();
-        String message = config.getMessage("anomaly.created")
-            .replace("{type}", type)
-            .replace("{x}", String.valueOf(loc.getBlockX()))
-            .replace("{y}", String.valueOf(loc.getBlockY()))
-            .replace("{z}", String.valueOf(loc.getBlockZ()));
-        player.sendMessage(message);
+        player.sendMessage(config.getTemplate(Messages.ANOMALY_CREATED)
+            .render(type.name, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
         
         return true;
     }
@@ -233,7 +269,7 @@ public class AnomalyManager {
         for (Anomaly anomaly : anomalies.values()) {
             Location loc = anomaly.location;
             player.sendMessage(ChatColor.WHITE + "- " + anomaly.id + ": " + 
-                             ChatColor.YELLOW + anomaly.type + ChatColor.WHITE + 
+                             ChatColor.YELLOW + anomaly.type.name + ChatColor.WHITE + 
                              " в " + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ());
         }
         
@@ -267,12 +303,9 @@ public class AnomalyManager {
             return true;
         }
         
-        long timeLeft = (anomaly.createdTime + anomaly.duration - System.currentTimeMillis()) / 1000;
-        String message = config.getMessage("anomaly.info")
-            .replace("{type}", anomaly.type)
-            .replace("{radius}", String.valueOf(anomaly.radius))
-            .replace("{time}", String.valueOf(timeLeft));
-        player.sendMessage(message);
+        long timeLeft = expiryWheel.remaining(anomaly.expiry) / 20; // Тики в секунды
+        player.sendMessage(config.getTemplate(Messages.ANOMALY_INFO)
+            .render(anomaly.type.name, anomaly.radius, timeLeft));
         
         return true;
     }
@@ -0,0 +1,119 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+// Описание типа аномалии из секции anomaly-types в config.yml: частицы и звук появления,
+// эффекты зелий и сообщение при входе. Все объекты создаются при загрузке конфигурации
+// и неизменяемы, поэтому применение эффектов к игроку ничего не выделяет.
+public final class AnomalyType {
+
+    private static final PotionEffect[] NO_EFFECTS = new PotionEffect[0];
+
+    public final String name;
+    public final Particle particle;
+    public final int particleCount;
+    public final double particleSpread;
+    public final Sound sound;
+    public final float soundVolume;
+    public final float soundPitch;
+    public final PotionEffect[] effects;
+    public final int radiation;
+    public final MessageTemplate message;
+
+    private AnomalyType(String name, ConfigurationSection section, MessageTemplate message, Logger logger) {
+        this.name = name;
+        this.message = message;
+
+        if (section == null) {
+            // Тип без описания - как неизвестный тип до появления реестра
+            this.particle = Particle.PORTAL;
+            this.particleCount = 50;
+            this.particleSpread = 3.0;
+            this.sound = Sound.BLOCK_PORTAL_TRIGGER;
+            this.soundVolume = 1.0f;
+            this.soundPitch = 1.0f;
+            this.effects = NO_EFFECTS;
+            this.radiation = 0;
+            return;
+        }
+
+        this.particle = parseEnum(Particle.class, section.getString("particle", "PORTAL"), Particle.PORTAL, name, logger);
+        this.particleCount = Math.max(0, section.getInt("particle-count", 50));
+        this.particleSpread = Math.max(0.0, section.getDouble("particle-spread", 3.0));
+        this.sound = parseEnum(Sound.class, section.getString("sound", "BLOCK_PORTAL_TRIGGER"), Sound.BLOCK_PORTAL_TRIGGER, name, logger);
+        this.soundVolume = (float) section.getDouble("sound-volume", 1.0);
+        this.soundPitch = (float) section.getDouble("sound-pitch", 1.0);
+        this.effects = parseEffects(section.getStringList("effects"), name, logger);
+        this.radiation = Math.max(0, section.getInt("radiation", 0));
+    }
+
+    // Частицы и звук в точке появления аномалии
+    public void spawn(EffectEmitter emitter, Location location) {
+        emitter.particle(location, particle, particleCount, particleSpread, true);
+        emitter.sound(location, sound, soundVolume, soundPitch, false);
+    }
+
+    public void apply(Player player) {
+        for (PotionEffect effect : effects) {
+            player.addPotionEffect(effect);
+        }
+    }
+
+    // Реестр включённых типов (anomaly-settings.types) в порядке из конфига
+    public static Map<String, AnomalyType> loadAll(ConfigurationSection config, List<String> enabled,
+                                                   Function<String, MessageTemplate> messages, Logger logger) {
+        ConfigurationSection definitions = config.getConfigurationSection("anomaly-types");
+        Map<String, AnomalyType> types = new LinkedHashMap<>();
+        for (String name : enabled) {
+            ConfigurationSection section = definitions != null ? definitions.getConfigurationSection(name) : null;
+            if (section == null) {
+                logger.warning("Нет описания типа аномалии в anomaly-types: " + name);
+            }
+            MessageTemplate message = messages.apply("anomaly-effects." + name.toLowerCase(Locale.ROOT) + ".message");
+            types.put(name, new AnomalyType(name, section, message, logger));
+        }
+        return Collections.unmodifiableMap(types);
+    }
+
+    // Формат эффекта: "ТИП длительность усиление", например "LEVITATION 100 1"
+    @SuppressWarnings("deprecation")
+    private static PotionEffect[] parseEffects(List<String> raw, String typeName, Logger logger) {
+        List<PotionEffect> effects = new ArrayList<>(raw.size());
+        for (String line : raw) {
+            String[] parts = line.trim().split("\\s+");
+            PotionEffectType effectType = PotionEffectType.getByName(parts[0]);
+            if (effectType == null) {
+                logger.warning("Неизвестный эффект у аномалии " + typeName + ": " + line);
+                continue;
+            }
+            try {
+                int duration = parts.length > 1 ? Integer.parseInt(parts[1]) : 100;
+                int amplifier = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+                effects.add(new PotionEffect(effectType, duration, amplifier));
+            } catch (NumberFormatException e) {
+                logger.warning("Неверный формат эффекта у аномалии " + typeName + ": " + line);
+            }
+        }
+        return effects.isEmpty() ? NO_EFFECTS : effects.toArray(NO_EFFECTS);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E fallback,
+                                                   String typeName, Logger logger) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Неизвестное значение " + value + " у аномалии " + typeName);
+            return fallback;
+        }
+    }
+}
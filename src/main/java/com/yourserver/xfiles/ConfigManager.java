@@ -1,12 +1,17 @@
 package com.yourserver.xfiles;
 
-import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.potion.PotionEffectType;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 public class ConfigManager {
     
@@ -15,6 +20,24 @@ public class ConfigManager {
     private FileConfiguration messages;
     private File configFile;
     private File messagesFile;
+    // Всё, что собрано из config.yml и messages.yml, публикуется одним снимком:
+    // читатель не увидит новые настройки вместе со старыми сообщениями или типами
+    private final AtomicReference<Loaded> loaded = new AtomicReference<>();
+    
+    private static final class Loaded {
+        final XFilesSettings settings;
+        final Map<String, MessageTemplate> messages; // все ключи messages.yml
+        final MessageTemplate[] templates;           // шаблоны с плейсхолдерами по Messages.Key
+        final Map<String, AnomalyType> anomalyTypes;
+        
+        Loaded(XFilesSettings settings, Map<String, MessageTemplate> messages, MessageTemplate[] templates,
+               Map<String, AnomalyType> anomalyTypes) {
+            this.settings = settings;
+            this.messages = messages;
+            this.templates = templates;
+            this.anomalyTypes = anomalyTypes;
+        }
+    }
     
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -31,80 +54,160 @@ public class ConfigManager {
             plugin.saveResource("messages.yml", false);
         }
         messages = YamlConfiguration.loadConfiguration(messagesFile);
+        // Настройки записи JFR для событий плагина (FlightEvents); плагином не читаются
+        if (!new File(plugin.getDataFolder(), "xfiles.jfc").exists()) {
+            plugin.saveResource("xfiles.jfc", false);
+        }
+        loaded.set(build());
     }
     
     public void reloadConfigs() {
         plugin.reloadConfig();
         config = plugin.getConfig();
         messages = YamlConfiguration.loadConfiguration(messagesFile);
+        // Снимок собирается целиком и подменяется одной записью;
+        // уже созданные аномалии сохраняют ссылку на прежнее описание типа
+        loaded.set(build());
+    }
+    
+    // Шаблоны и типы собираются заново только при загрузке и перезагрузке
+    private Loaded build() {
+        XFilesSettings settings = XFilesSettings.load(config, plugin.getLogger());
+        Map<String, MessageTemplate> cache = new HashMap<>();
+        for (String path : messages.getKeys(true)) {
+            if (messages.isString(path)) {
+                cache.put(path, MessageTemplate.compile(messages.getString(path)));
+            }
+        }
+        
+        List<Messages.Key> keys = Messages.keys();
+        MessageTemplate[] compiled = new MessageTemplate[keys.size()];
+        for (Messages.Key key : keys) {
+            compiled[key.id] = MessageTemplate.compile(messages.getString(key.path, missing(key.path)), key.params);
+        }
+        
+        Function<String, MessageTemplate> lookup = path -> template(cache, path);
+        Map<String, AnomalyType> types = AnomalyType.loadAll(config, settings.anomalyTypes, lookup, plugin.getLogger());
+        return new Loaded(settings, cache, compiled, types);
+    }
+    
+    private static MessageTemplate template(Map<String, MessageTemplate> cache, String path) {
+        MessageTemplate template = cache.get(path);
+        return template != null ? template : MessageTemplate.compile(missing(path));
+    }
+    
+    private static String missing(String path) {
+        return "&cСообщение не найдено: " + path;
     }
     
     public String getMessage(String path) {
-        return ChatColor.translateAlternateColorCodes('&', 
-            messages.getString(path, "&cСообщение не найдено: " + path));
+        return getTemplate(path).text();
+    }
+    
+    public MessageTemplate getTemplate(String path) {
+        return template(loaded.get().messages, path);
+    }
+    
+    public MessageTemplate getTemplate(Messages.Key key) {
+        return loaded.get().templates[key.id];
+    }
+    
+    // Текущий снимок настроек; горячие пути берут его один раз и читают поля
+    public XFilesSettings getSettings() {
+        return loaded.get().settings;
     }
     
     // Основные настройки
     public boolean isAutoAnomaliesEnabled() {
-        return config.getBoolean("settings.enable-auto-anomalies", true);
+        return getSettings().autoAnomaliesEnabled;
     }
     
     public int getRandomAnomalyChance() {
-        return config.getInt("settings.random-anomaly-chance", 20);
+        return getSettings().randomAnomalyChance;
     }
     
     public long getAutoAnomalyInterval() {
-        return config.getLong("settings.auto-anomaly-interval", 24000L);
+        return getSettings().autoAnomalyInterval;
+    }
+    
+    public long getEffectRefreshInterval() {
+        return getSettings().effectRefreshInterval;
+    }
+    
+    // Настройки производительности
+    public int getComputeThreads() {
+        return getSettings().computeThreads;
+    }
+    
+    public long getApplyBudgetMicros() {
+        return getSettings().applyBudgetMicros;
     }
     
     // Настройки аномалий
     public int getMaxAnomalies() {
-        return config.getInt("anomaly-settings.max-anomalies", 10);
+        return getSettings().maxAnomalies;
     }
     
     public List<String> getAnomalyTypes() {
-        return config.getStringList("anomaly-settings.types");
+        return getSettings().anomalyTypes;
+    }
+    
+    // Описание типа по имени (в верхнем регистре) или null
+    public AnomalyType getAnomalyType(String name) {
+        return loaded.get().anomalyTypes.get(name);
+    }
+    
+    public Collection<AnomalyType> getAnomalyTypeRegistry() {
+        return loaded.get().anomalyTypes.values();
     }
     
     public int getAnomalyEffectRadius() {
-        return config.getInt("anomaly-settings.effect-radius", 15);
+        return getSettings().anomalyEffectRadius;
     }
     
     public int getAnomalyDuration() {
-        return config.getInt("anomaly-settings.duration", 12000);
+        return getSettings().anomalyDuration;
     }
     
     // Настройки радиации
     public boolean isRadiationEnabled() {
-        return config.getBoolean("radiation-settings.enable-radiation", true);
+        return getSettings().radiationEnabled;
     }
     
     public int getMaxRadiationLevel() {
-        return config.getInt("radiation-settings.max-radiation-level", 100);
+        return getSettings().maxRadiationLevel;
+    }
+    
+    public double getRadiationDecayRate() {
+        return getSettings().radiationDecayRate;
+    }
+    
+    public double getRadiationHalfLife() {
+        return getSettings().radiationHalfLife;
     }
     
     public int getContaminationRadius() {
-        return config.getInt("radiation-settings.contamination-radius", 10);
+        return getSettings().contaminationRadius;
     }
     
-    public List<String> getRadiationEffects() {
-        return config.getStringList("radiation-settings.radiation-effects");
+    public List<PotionEffectType> getRadiationEffects() {
+        return getSettings().radiationEffects;
     }
     
     // Настройки реактора
     public int getMaxReactorTemperature() {
-        return config.getInt("reactor-settings.max-temperature", 1000);
+        return getSettings().maxReactorTemperature;
     }
     
     public int getCriticalTemperature() {
-        return config.getInt("reactor-settings.critical-temperature", 800);
+        return getSettings().criticalTemperature;
     }
     
     public int getMeltdownBlastRadius() {
-        return config.getInt("reactor-settings.meltdown-blast-radius", 15);
+        return getSettings().meltdownBlastRadius;
     }
     
     public int getMeltdownRadiationRadius() {
-        return config.getInt("reactor-settings.meltdown-radiation-radius", 50);
+        return getSettings().meltdownRadiationRadius;
     }
 }
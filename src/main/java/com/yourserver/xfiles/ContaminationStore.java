@@ -0,0 +1,309 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Долговременное радиоактивное заражение местности в файлах регионов по образцу Anvil:
+// один файл на 32x32 чанка (512x512 столбцов) с ячейками short на столбец, доступ через
+// MappedByteBuffer. Регионы рядом с игроками подгружаются в фоне, далёкие отпускаются;
+// запись на диск выполняет ОС. Чтение уровня - один доступ к отображённому буферу,
+// поэтому безопасно и из рабочих потоков конвейера облучения.
+public class ContaminationStore {
+
+    private static final int REGION_SHIFT = 9; // 512 блоков
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int MAGIC = 0x58464331; // "XFC1"
+    private static final int HEADER = 16;
+    private static final long FILE_SIZE = HEADER + (long) REGION_SIZE * REGION_SIZE * 2;
+
+    private static final class Region {
+        final MappedByteBuffer cells;
+        long lastWanted;
+
+        Region(MappedByteBuffer cells) {
+            this.cells = cells;
+        }
+
+        int get(int blockX, int blockZ) {
+            return cells.getShort(index(blockX, blockZ));
+        }
+
+        void add(int blockX, int blockZ, int delta) {
+            int index = index(blockX, blockZ);
+            int value = Math.max(0, Math.min(Short.MAX_VALUE, cells.getShort(index) + delta));
+            cells.putShort(index, (short) value);
+        }
+
+        static int index(int blockX, int blockZ) {
+            return HEADER + (((blockZ & (REGION_SIZE - 1)) << REGION_SHIFT) | (blockX & (REGION_SIZE - 1))) * 2;
+        }
+    }
+
+    private final Path directory;
+    private final Logger logger;
+    private final ExecutorService io;
+
+    // Загруженные регионы; таблицы меняет только основной поток, читатели видят опубликованную копию
+    private final Map<UUID, LongHashMap<Region>> loaded = new HashMap<>();
+    private volatile Map<UUID, LongHashMap<Region>> published = Map.of();
+    private final Set<String> loading = new HashSet<>();
+    private final Set<String> absent = new HashSet<>(); // регионы без файла (чистая местность)
+    private final Queue<Mapped> mapped = new ConcurrentLinkedQueue<>();
+    // Отображённые регионы; таблицу ведёт только поток ввода-вывода, один файл отображается один раз
+    private final Map<UUID, LongHashMap<Region>> open = new HashMap<>();
+
+    // Регион, отображённый в фоне и ждущий основной поток; region == null - файла нет
+    private record Mapped(UUID world, long key, Region region) {}
+
+    // Уведомление о завершённой записи круга (поток записи)
+    public interface WriteListener {
+        void written(UUID worldId, double x, double z, int radius);
+    }
+
+    private volatile WriteListener writeListener;
+
+    public void setWriteListener(WriteListener listener) {
+        this.writeListener = listener;
+    }
+
+    public ContaminationStore(Path directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "XFiles-Contamination");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static long regionKey(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    // Уровень заражения столбца; 0, если регион не загружен
+    public int getLevel(UUID worldId, int blockX, int blockZ) {
+        LongHashMap<Region> regions = published.get(worldId);
+        if (regions == null) return 0;
+        Region region = regions.get(regionKey(blockX >> REGION_SHIFT, blockZ >> REGION_SHIFT));
+        return region == null ? 0 : region.get(blockX, blockZ);
+    }
+
+    // Заражение круга с линейным спадом от level в центре до 1 на краю.
+    // Запись идёт в фоне: незагруженные регионы отображаются только на время записи.
+    public void contaminate(UUID worldId, double x, double z, int radius, int level) {
+        write(worldId, x, z, radius, level);
+    }
+
+    public void decontaminate(UUID worldId, double x, double z, int radius) {
+        write(worldId, x, z, radius, -Short.MAX_VALUE);
+    }
+
+    private void write(UUID worldId, double x, double z, int radius, int level) {
+        io.execute(() -> {
+            double radiusSquared = (double) radius * radius;
+            int minX = (int) Math.floor(x - radius), maxX = (int) Math.floor(x + radius);
+            int minZ = (int) Math.floor(z - radius), maxZ = (int) Math.floor(z + radius);
+
+            for (int regionX = minX >> REGION_SHIFT; regionX <= maxX >> REGION_SHIFT; regionX++) {
+                for (int regionZ = minZ >> REGION_SHIFT; regionZ <= maxZ >> REGION_SHIFT; regionZ++) {
+                    long key = regionKey(regionX, regionZ);
+                    Region region = opened(worldId, key);
+                    try {
+                        if (region == null) {
+                            // Очистка не создаёт файлы для чистой местности
+                            if (level < 0 && !Files.exists(regionFile(worldId, regionX, regionZ))) continue;
+                            region = map(worldId, regionX, regionZ);
+                            // Основной поток подхватит регион; не нужный игрокам выгрузится сам
+                            mapped.add(new Mapped(worldId, key, region));
+                        }
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Не удалось открыть регион заражения", e);
+                        continue;
+                    }
+
+                    int fromX = Math.max(minX, regionX << REGION_SHIFT), toX = Math.min(maxX, (regionX << REGION_SHIFT) + REGION_SIZE - 1);
+                    int fromZ = Math.max(minZ, regionZ << REGION_SHIFT), toZ = Math.min(maxZ, (regionZ << REGION_SHIFT) + REGION_SIZE - 1);
+                    for (int bx = fromX; bx <= toX; bx++) {
+                        double dx = bx + 0.5 - x;
+                        for (int bz = fromZ; bz <= toZ; bz++) {
+                            double dz = bz + 0.5 - z;
+                            double distanceSquared = dx * dx + dz * dz;
+                            if (distanceSquared > radiusSquared) continue;
+
+                            int delta = level < 0 ? level
+                                : Math.max(1, (int) Math.round(level * (1.0 - Math.sqrt(distanceSquared) / radius)));
+                            region.add(bx, bz, delta);
+                        }
+                    }
+                }
+            }
+            WriteListener listener = writeListener;
+            if (listener != null) listener.written(worldId, x, z, radius);
+        });
+    }
+
+    // Подгрузка регионов вокруг игроков и выгрузка неиспользуемых (основной поток)
+    public void page(Collection<? extends Player> players, int margin, long unloadAfterMs) {
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+
+        // Готовые отображения из фонового потока
+        Mapped done;
+        while ((done = mapped.poll()) != null) {
+            UUID worldId = done.world();
+            long key = done.key();
+            String name = worldId + ":" + key;
+            loading.remove(name);
+            Region region = done.region();
+            if (region == null) {
+                absent.add(name);
+                continue;
+            }
+            absent.remove(name);
+            region.lastWanted = now;
+            loaded.computeIfAbsent(worldId, k -> new LongHashMap<>()).put(key, region);
+            changed = true;
+        }
+
+        for (Player player : players) {
+            Location at = player.getLocation();
+            UUID worldId = at.getWorld().getUID();
+            int blockX = at.getBlockX(), blockZ = at.getBlockZ();
+            for (int regionX = (blockX - margin) >> REGION_SHIFT; regionX <= (blockX + margin) >> REGION_SHIFT; regionX++) {
+                for (int regionZ = (blockZ - margin) >> REGION_SHIFT; regionZ <= (blockZ + margin) >> REGION_SHIFT; regionZ++) {
+                    want(worldId, regionX, regionZ, now);
+                }
+            }
+        }
+
+        List<Long> stale = new ArrayList<>();
+        for (Iterator<Map.Entry<UUID, LongHashMap<Region>>> worlds = loaded.entrySet().iterator(); worlds.hasNext(); ) {
+            Map.Entry<UUID, LongHashMap<Region>> world = worlds.next();
+            UUID worldId = world.getKey();
+            LongHashMap<Region> regions = world.getValue();
+            stale.clear();
+            for (int i = 0; i < regions.capacity(); i++) {
+                Region region = regions.valueAt(i);
+                if (region != null && now - region.lastWanted > unloadAfterMs) {
+                    stale.add(regions.keyAt(i));
+                }
+            }
+            // Буфер освободит сборщик мусора; изменённые страницы ОС записывает сама
+            for (long key : stale) {
+                regions.remove(key);
+                io.execute(() -> release(worldId, key));
+                changed = true;
+            }
+            if (regions.isEmpty()) worlds.remove();
+        }
+
+        if (changed) publish();
+    }
+
+    private void want(UUID worldId, int regionX, int regionZ, long now) {
+        long key = regionKey(regionX, regionZ);
+        LongHashMap<Region> regions = loaded.get(worldId);
+        Region region = regions != null ? regions.get(key) : null;
+        if (region != null) {
+            region.lastWanted = now;
+            return;
+        }
+        // Отображаем только существующие файлы: в чистых местах регионы не создаются
+        String name = worldId + ":" + key;
+        if (absent.contains(name) || !loading.add(name)) return;
+        Path file = regionFile(worldId, regionX, regionZ);
+        io.execute(() -> {
+            try {
+                // Регион мог уже отобразить поток записи
+                Region known = opened(worldId, key);
+                if (known == null && Files.exists(file)) known = map(worldId, regionX, regionZ);
+                mapped.add(new Mapped(worldId, key, known));
+                return;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Не удалось открыть регион заражения " + file.getFileName(), e);
+            }
+            mapped.add(new Mapped(worldId, key, null));
+        });
+    }
+
+    private void publish() {
+        Map<UUID, LongHashMap<Region>> copy = new HashMap<>();
+        for (Map.Entry<UUID, LongHashMap<Region>> entry : loaded.entrySet()) {
+            copy.put(entry.getKey(), new LongHashMap<>(entry.getValue()));
+        }
+        published = copy;
+    }
+
+    private Path regionFile(UUID worldId, int regionX, int regionZ) {
+        return directory.resolve(worldId.toString()).resolve("r." + regionX + "." + regionZ + ".xfc");
+    }
+
+    // Только поток ввода-вывода
+    private Region opened(UUID worldId, long key) {
+        LongHashMap<Region> regions = open.get(worldId);
+        return regions != null ? regions.get(key) : null;
+    }
+
+    // Только поток ввода-вывода: основной поток выгрузил регион, буфер отпускается
+    private void release(UUID worldId, long key) {
+        LongHashMap<Region> regions = open.get(worldId);
+        if (regions == null) return;
+        regions.remove(key);
+        if (regions.isEmpty()) open.remove(worldId);
+    }
+
+    // Только поток ввода-вывода
+    private Region map(UUID worldId, int regionX, int regionZ) throws IOException {
+        Path file = regionFile(worldId, regionX, regionZ);
+        Files.createDirectories(file.getParent());
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+             FileChannel channel = raf.getChannel()) {
+            boolean fresh = raf.length() < FILE_SIZE;
+            if (fresh) raf.setLength(FILE_SIZE); // разреженный файл на большинстве ФС
+            MappedByteBuffer cells = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            if (fresh) cells.putInt(0, MAGIC);
+            else if (cells.getInt(0) != MAGIC) throw new IOException("Неизвестный формат " + file.getFileName());
+            Region region = new Region(cells);
+            open.computeIfAbsent(worldId, k -> new LongHashMap<>()).put(regionKey(regionX, regionZ), region);
+            return region;
+        }
+    }
+
+    // Выключение: дописать очередь и сбросить изменённые страницы на диск
+    public void close() {
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Запись заражения не завершилась за 10 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Поток ввода-вывода остановлен, его таблица теперь доступна и отсюда
+        force(open);
+        force(loaded);
+        open.clear();
+        loaded.clear();
+        published = Map.of();
+    }
+
+    private static void force(Map<UUID, LongHashMap<Region>> tables) {
+        for (LongHashMap<Region> regions : tables.values()) {
+            for (int i = 0; i < regions.capacity(); i++) {
+                Region region = regions.valueAt(i);
+                if (region != null) region.cells.force();
+            }
+        }
+    }
+}
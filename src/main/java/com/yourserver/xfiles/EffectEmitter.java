@@ -0,0 +1,253 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.logging.Level;
+
+// Единая точка отправки частиц и звуков. Вызовы за тик ставятся в очередь, одинаковые
+// выбросы в одном блоке сливаются, а в конце тика очередь рассылается каждому игроку
+// отдельно: число частиц уменьшается с расстоянием, а пакеты считаются по общему
+// и по персональному бюджету. Косметические выбросы сверх бюджета отбрасываются,
+// обязательные (взрывы, предупреждения) отправляются всегда.
+public class EffectEmitter {
+
+    private static final int MAX_MERGED_COUNT = 256;
+
+    private final XFilesPlugin plugin;
+    private final PlayerSlots slots;
+
+    // Очередь текущего тика
+    private int size;
+    private World[] world = new World[64];
+    private Player[] target = new Player[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] z = new double[64];
+    private Particle[] particle = new Particle[64];
+    private Sound[] sound = new Sound[64];
+    private int[] count = new int[64];
+    private double[] spread = new double[64];
+    private float[] volume = new float[64];
+    private float[] pitch = new float[64];
+    private boolean[] cosmetic = new boolean[64];
+    private final LongIntHashMap merge = new LongIntHashMap(); // ключ выброса -> его индекс, без упаковки
+
+    // Рассылка
+    private final Map<World, List<Player>> viewers = new HashMap<>();
+    private int[] playerPackets = new int[64];
+    private int globalPackets;
+    private long dropped;
+    private final Set<Object> failed = new HashSet<>(); // типы, об ошибке которых уже сообщено
+
+    public EffectEmitter(XFilesPlugin plugin) {
+        this.plugin = plugin;
+        this.slots = plugin.getPlayerSlots();
+    }
+
+    public void particle(Location location, Particle type, int amount, double offset, boolean cosmeticOnly) {
+        if (amount <= 0) return;
+        int pos = findOrAdd(location.getWorld(), null, location.getX(), location.getY(), location.getZ(),
+                            type.ordinal() * 2L, cosmeticOnly);
+        if (particle[pos] == null) {
+            particle[pos] = type;
+            count[pos] = Math.min(amount, MAX_MERGED_COUNT);
+            spread[pos] = offset;
+        } else {
+            count[pos] = Math.min(count[pos] + amount, MAX_MERGED_COUNT);
+            spread[pos] = Math.max(spread[pos], offset);
+        }
+    }
+
+    public void sound(Location location, Sound type, float soundVolume, float soundPitch, boolean cosmeticOnly) {
+        queueSound(location.getWorld(), null, location, type, soundVolume, soundPitch, cosmeticOnly);
+    }
+
+    // Звук, который слышит только один игрок
+    public void sound(Player player, Sound type, float soundVolume, float soundPitch, boolean cosmeticOnly) {
+        queueSound(player.getWorld(), player, player.getLocation(), type, soundVolume, soundPitch, cosmeticOnly);
+    }
+
+    private void queueSound(World in, Player to, Location location, Sound type,
+                            float soundVolume, float soundPitch, boolean cosmeticOnly) {
+        int pos = findOrAdd(in, to, location.getX(), location.getY(), location.getZ(),
+                            type.ordinal() * 2L + 1, cosmeticOnly);
+        if (sound[pos] == null) {
+            sound[pos] = type;
+            volume[pos] = soundVolume;
+            pitch[pos] = soundPitch;
+        } else {
+            volume[pos] = Math.max(volume[pos], soundVolume);
+        }
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    // Вызывается раз в тик из основного потока
+    public void flush() {
+        if (size == 0) return;
+
+        XFilesSettings settings = plugin.getConfigManager().getSettings();
+        ensurePlayerCapacity(slots.getHighWater());
+        Arrays.fill(playerPackets, 0);
+        globalPackets = 0;
+
+        // Сначала обязательные выбросы, затем косметические - им достаётся остаток бюджета.
+        // Очередь очищается и при ошибке, иначе она растёт и ошибка повторяется каждый тик.
+        try {
+            for (int pass = 0; pass < 2; pass++) {
+                boolean cosmeticPass = pass == 1;
+                for (int i = 0; i < size; i++) {
+                    if (cosmetic[i] != cosmeticPass) continue;
+                    try {
+                        send(i, settings);
+                    } catch (RuntimeException e) {
+                        // Например, частица из конфигурации, которой нужны данные (DUST)
+                        Object type = particle[i] != null ? particle[i] : sound[i];
+                        if (failed.add(type)) {
+                            plugin.getLogger().log(Level.WARNING, "Не удалось отправить эффект " + type, e);
+                        }
+                    }
+                }
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(world, 0, size, null);
+        Arrays.fill(target, 0, size, null);
+        Arrays.fill(particle, 0, size, null);
+        Arrays.fill(sound, 0, size, null);
+        size = 0;
+        merge.clear();
+        viewers.clear();
+    }
+
+    private void send(int i, XFilesSettings settings) {
+        if (target[i] != null) {
+            if (target[i].isOnline() && allow(target[i], settings, cosmetic[i])) {
+                target[i].playSound(target[i].getLocation(), sound[i], volume[i], pitch[i]);
+            }
+            return;
+        }
+
+        List<Player> players = viewers.computeIfAbsent(world[i], World::getPlayers);
+        double full = settings.effectFullDetailDistance;
+        double far = particle[i] != null
+            ? settings.effectViewDistance
+            : Math.max(16.0, 16.0 * volume[i]); // Дальность слышимости звука в ванилле
+        Location source = particle[i] != null ? null : new Location(world[i], x[i], y[i], z[i]);
+
+        for (int p = 0; p < players.size(); p++) {
+            Player player = players.get(p);
+            Location at = player.getLocation();
+            double dx = at.getX() - x[i];
+            double dy = at.getY() - y[i];
+            double dz = at.getZ() - z[i];
+            double distanceSquared = dx * dx + dy * dy + dz * dz;
+            if (distanceSquared > far * far) continue;
+            if (!allow(player, settings, cosmetic[i])) continue;
+
+            if (particle[i] != null) {
+                int amount = count[i];
+                if (distanceSquared > full * full) {
+                    // Линейно уменьшаем число частиц от полной детализации до одной на границе видимости
+                    double distance = Math.sqrt(distanceSquared);
+                    amount = Math.max(1, (int) (amount * (far - distance) / (far - full)));
+                }
+                double offset = spread[i];
+                player.spawnParticle(particle[i], x[i], y[i], z[i], amount, offset, offset, offset);
+            } else {
+                player.playSound(source, sound[i], volume[i], pitch[i]);
+            }
+        }
+    }
+
+    // Учёт пакета в бюджетах; обязательные выбросы учитываются, но не ограничиваются.
+    // Слот не выдаётся: игроки мира без слота (NPC других плагинов) не заходили и не выйдут,
+    // поэтому для них считается только общий бюджет.
+    private boolean allow(Player player, XFilesSettings settings, boolean cosmeticOnly) {
+        int slot = slots.slotOf(player.getUniqueId());
+        if (slot >= 0) ensurePlayerCapacity(slot + 1);
+        if (cosmeticOnly && (globalPackets >= settings.effectGlobalBudget
+                || (slot >= 0 && playerPackets[slot] >= settings.effectPlayerBudget))) {
+            dropped++;
+            return false;
+        }
+        globalPackets++;
+        if (slot >= 0) playerPackets[slot]++;
+        return true;
+    }
+
+    private int findOrAdd(World in, Player to, double px, double py, double pz, long kind, boolean cosmeticOnly) {
+        long key = kind;
+        key = key * 31 + in.getUID().hashCode();
+        key = key * 31 + (to != null ? to.getUniqueId().hashCode() : 0);
+        key = key * 0x9E3779B97F4A7C15L + (long) Math.floor(px);
+        key = key * 0x9E3779B97F4A7C15L + (long) Math.floor(py);
+        key = key * 0x9E3779B97F4A7C15L + (long) Math.floor(pz);
+
+        int existing = merge.get(key);
+        if (existing != LongIntHashMap.MISSING) {
+            int pos = existing;
+            // Совпадение хеша ещё не значит совпадение выброса - сверяем поля
+            if (world[pos] == in && target[pos] == to
+                    && (long) Math.floor(x[pos]) == (long) Math.floor(px)
+                    && (long) Math.floor(y[pos]) == (long) Math.floor(py)
+                    && (long) Math.floor(z[pos]) == (long) Math.floor(pz)
+                    && kindOf(pos) == kind) {
+                cosmetic[pos] &= cosmeticOnly;
+                return pos;
+            }
+        }
+
+        if (size == world.length) grow();
+        int pos = size++;
+        world[pos] = in;
+        target[pos] = to;
+        x[pos] = px;
+        y[pos] = py;
+        z[pos] = pz;
+        cosmetic[pos] = cosmeticOnly;
+        if (existing == LongIntHashMap.MISSING) {
+            merge.put(key, pos);
+        }
+        return pos;
+    }
+
+    private long kindOf(int pos) {
+        if (particle[pos] != null) return particle[pos].ordinal() * 2L;
+        if (sound[pos] != null) return sound[pos].ordinal() * 2L + 1;
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = world.length * 2;
+        world = Arrays.copyOf(world, capacity);
+        target = Arrays.copyOf(target, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        particle = Arrays.copyOf(particle, capacity);
+        sound = Arrays.copyOf(sound, capacity);
+        count = Arrays.copyOf(count, capacity);
+        spread = Arrays.copyOf(spread, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+        pitch = Arrays.copyOf(pitch, capacity);
+        cosmetic = Arrays.copyOf(cosmetic, capacity);
+    }
+
+    private void ensurePlayerCapacity(int capacity) {
+        if (capacity > playerPackets.length) {
+            playerPackets = Arrays.copyOf(playerPackets, Math.max(playerPackets.length * 2, capacity));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.yourserver.xfiles;
+
+// Иерархическое колесо таймеров для истечения срока жизни аномалий, зон и прочих
+// временных объектов. Четыре уровня по 64 ячейки покрывают 2^24 тиков (~9.7 суток);
+// более далёкие сроки хранятся на верхнем уровне и переразмещаются при каскаде.
+// Вставка и отмена - O(1), продвижение - один вызов tick() за серверный тик.
+public class ExpiryWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    public static final class Timeout {
+        private final Runnable task;
+        private long deadline;
+        private Timeout prev;
+        private Timeout next;
+        private Bucket bucket;
+        private boolean cancelled;
+        private boolean expired;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean isActive() {
+            return !cancelled && !expired;
+        }
+    }
+
+    private static final class Bucket {
+        Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) head.prev = timeout;
+            head = timeout;
+        }
+
+        void unlink(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private final Bucket[][] wheels;
+    private Bucket firing;
+    private long now;
+    private int size;
+
+    public ExpiryWheel() {
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheels[level][i] = new Bucket();
+            }
+        }
+    }
+
+    public Timeout schedule(long delayTicks, Runnable task) {
+        Timeout timeout = new Timeout(task, now + Math.max(1L, delayTicks));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout timeout) {
+        if (timeout == null || !timeout.isActive()) return false;
+
+        timeout.cancelled = true;
+        // Ячейку, которая сейчас срабатывает, не трогаем - таймер просто пропустят
+        if (timeout.bucket != null && timeout.bucket != firing) {
+            timeout.bucket.unlink(timeout);
+        }
+        size--;
+        return true;
+    }
+
+    // Оставшееся время в тиках (0 для отменённых и сработавших)
+    public long remaining(Timeout timeout) {
+        if (timeout == null || !timeout.isActive()) return 0L;
+        return Math.max(0L, timeout.deadline - now);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void tick() {
+        now++;
+
+        // Каскад: при обнулении младших разрядов переносим ячейку старшего уровня вниз
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << (BITS * level)) - 1)) != 0) break;
+            cascade(wheels[level][(int) (now >>> (BITS * level)) & MASK]);
+        }
+
+        Bucket bucket = wheels[0][(int) now & MASK];
+        Timeout timeout = bucket.head;
+        bucket.head = null;
+        firing = bucket;
+        try {
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.bucket = null;
+                if (!timeout.cancelled) {
+                    timeout.expired = true;
+                    size--;
+                    timeout.task.run();
+                }
+                timeout = next;
+            }
+        } finally {
+            firing = null;
+        }
+    }
+
+    public void clear() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                for (Timeout t = bucket.head; t != null; t = t.next) {
+                    t.cancelled = true;
+                    t.bucket = null;
+                }
+                bucket.head = null;
+            }
+        }
+        size = 0;
+    }
+
+    private void cascade(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        bucket.head = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadline - now;
+        if (delta < SLOTS) {
+            // Срок наступил во время каскада - в ячейку текущего тика
+            long at = Math.max(timeout.deadline, now);
+            wheels[0][(int) at & MASK].add(timeout);
+            return;
+        }
+
+        for (int level = 1; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                wheels[level][(int) (timeout.deadline >>> (BITS * level)) & MASK].add(timeout);
+                return;
+            }
+        }
+
+        // Дальше горизонта колеса: последняя ячейка верхнего уровня, при каскаде переразместится
+        int top = LEVELS - 1;
+        long horizon = now + (1L << (BITS * LEVELS)) - 1;
+        wheels[top][(int) (horizon >>> (BITS * top)) & MASK].add(timeout);
+    }
+}
@@ -0,0 +1,164 @@
+package com.yourserver.xfiles;
+
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import com.yourserver.xfiles.ExposurePipeline.Batch;
+import com.yourserver.xfiles.ExposurePipeline.Snapshot;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Расчётный этап конвейера облучения: по снимку позиций определяет вход в аномалии,
+// пребывание в них и дозы радиации, раскладывая действия по пакетам срезов. Хранит
+// членство игроков по слотам между снимками. Bukkit API не вызывает, поэтому работает
+// и в пуле потоков сервера, и в офлайн-прогоне записанных трасс (TraceReplay в модуле xfiles-benchmarks).
+// Одновременно выполняется не больше одного расчёта.
+public final class ExposureCalculator {
+
+    private static final int SLICE = 64;
+    private static final Anomaly[] NONE = new Anomaly[0];
+
+    private Batch[] parts;
+    private int partCount;
+    private Anomaly[][] inside;
+    private int[] zones;
+    private int[] stateGeneration;
+    private final LongAdder tested = new LongAdder(); // проверено аномалий-кандидатов
+
+    public ExposureCalculator() {
+        this.parts = new Batch[] { new Batch() };
+        this.inside = new Anomaly[64][];
+        this.zones = new int[64];
+        this.stateGeneration = new int[64];
+        Arrays.fill(inside, NONE);
+    }
+
+    // Проверено аномалий-кандидатов за последний расчёт
+    long getTested() {
+        return tested.sum();
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public Batch getPart(int index) {
+        return parts[index];
+    }
+
+    // Очистка пакетов после применения; членство игроков сохраняется
+    public void reset() {
+        for (int i = 0; i < partCount; i++) {
+            parts[i].reset();
+        }
+        partCount = 0;
+    }
+
+    public void compute(Snapshot snap) {
+        int maxSlot = 0;
+        for (int i = 0; i < snap.size; i++) {
+            maxSlot = Math.max(maxSlot, snap.slot[i]);
+        }
+        ensureStateCapacity(maxSlot + 1);
+        tested.reset();
+
+        partCount = (snap.size + SLICE - 1) / SLICE;
+        if (parts.length < partCount) {
+            int old = parts.length;
+            parts = Arrays.copyOf(parts, partCount);
+            for (int i = old; i < partCount; i++) {
+                parts[i] = new Batch();
+            }
+        }
+
+        if (partCount == 1) {
+            computeSlice(snap, 0, snap.size, parts[0]);
+        } else {
+            List<RecursiveAction> tasks = new ArrayList<>(partCount);
+            for (int p = 0; p < partCount; p++) {
+                int part = p;
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        int from = part * SLICE;
+                        computeSlice(snap, from, Math.min(from + SLICE, snap.size), parts[part]);
+                    }
+                });
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+    // Срезы не пересекаются по слотам, поэтому пишут в состояние без синхронизации
+    private void computeSlice(Snapshot snap, int from, int to, Batch out) {
+        List<Anomaly> current = new ArrayList<>(4);
+        int candidates = 0;
+
+        for (int i = from; i < to; i++) {
+            int slot = snap.slot[i];
+            if (stateGeneration[slot] != snap.generation[i]) {
+                // Слот достался другому игроку - прежнее членство не в счёт
+                stateGeneration[slot] = snap.generation[i];
+                inside[slot] = NONE;
+                zones[slot] = 0;
+            }
+
+            // Аномалии: вход - новые, пребывание - известные (только на тике продления)
+            Anomaly[] previous = inside[slot];
+            current.clear();
+            candidates += snap.anomalies.query(snap.world[i], snap.x[i], snap.y[i], snap.z[i], current);
+
+            boolean changed = current.size() != previous.length;
+            for (int k = 0; k < current.size(); k++) {
+                Anomaly anomaly = current.get(k);
+                if (contains(previous, anomaly)) {
+                    if (snap.refresh) {
+                        out.add(i, Batch.STAY, anomaly, 0);
+                    }
+                } else {
+                    out.add(i, Batch.ENTER, anomaly, 0);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                inside[slot] = current.isEmpty() ? NONE : current.toArray(NONE);
+            }
+
+            // Радиационные зоны, разошедшаяся от них радиация вне зон и заражённая местность
+            // (единица дозы на каждые 25 единиц): доза при входе и на каждом тике продления
+            int count = snap.raster.getZoneCount(snap.world[i], snap.blockX[i], snap.blockZ[i]);
+            if (count == 0) {
+                int spread = snap.diffusion.getLevel(snap.world[i], snap.blockX[i], snap.blockZ[i]);
+                if (spread > 0) count = (spread + 24) / 25;
+            }
+            int contaminated = snap.contamination.getLevel(snap.world[i], snap.blockX[i], snap.blockZ[i]);
+            if (contaminated > 0) {
+                count += (contaminated + 24) / 25;
+            }
+            if (count > 0 && (snap.refresh || zones[slot] == 0)) {
+                out.add(i, Batch.RADIATION, null, count);
+            }
+            zones[slot] = count;
+        }
+        tested.add(candidates);
+    }
+
+    private static boolean contains(Anomaly[] anomalies, Anomaly anomaly) {
+        for (Anomaly candidate : anomalies) {
+            if (candidate == anomaly) return true;
+        }
+        return false;
+    }
+
+    private void ensureStateCapacity(int capacity) {
+        if (capacity > inside.length) {
+            int old = inside.length;
+            int grown = Math.max(old * 2, capacity);
+            inside = Arrays.copyOf(inside, grown);
+            Arrays.fill(inside, old, grown, NONE);
+            zones = Arrays.copyOf(zones, grown);
+            stateGeneration = Arrays.copyOf(stateGeneration, grown);
+        }
+    }
+}
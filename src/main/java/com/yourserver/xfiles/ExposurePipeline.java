@@ -0,0 +1,259 @@
+package com.yourserver.xfiles;
+
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+
+// Конвейер облучения в три этапа:
+// 1) основной поток каждый тик снимает позиции сменивших блок игроков (или всех - на тике
+//    продления эффектов) вместе с неизменяемыми снимками индекса аномалий и растра радиации;
+// 2) пул потоков считает вход/пребывание/выход и дозы облучения, разбивая игроков на срезы
+//    (ExposureCalculator);
+// 3) основной поток применяет готовый пакет, укладываясь в бюджет времени на тик.
+// Вызовы Bukkit API выполняются только на этапе 3.
+public class ExposurePipeline {
+
+    // Снимок позиций игроков для одного расчёта; открыт для офлайн-прогона трасс (TraceReplay)
+    public static final class Snapshot {
+        public int size;
+        int[] slot = new int[64];
+        int[] generation = new int[64];
+        Player[] player = new Player[64];
+        UUID[] world = new UUID[64];
+        double[] x = new double[64];
+        double[] y = new double[64];
+        double[] z = new double[64];
+        int[] blockX = new int[64];
+        int[] blockZ = new int[64];
+        public boolean refresh;
+        public AnomalyIndex.View anomalies;
+        public RadiationRaster.View raster;
+        public RadiationDiffusion.View diffusion;
+        public ContaminationStore contamination;
+
+        public void add(int slot, int generation, Player player, UUID world,
+                 double x, double y, double z, int blockX, int blockZ) {
+            if (size == this.slot.length) {
+                int capacity = size * 2;
+                this.slot = Arrays.copyOf(this.slot, capacity);
+                this.generation = Arrays.copyOf(this.generation, capacity);
+                this.player = Arrays.copyOf(this.player, capacity);
+                this.world = Arrays.copyOf(this.world, capacity);
+                this.x = Arrays.copyOf(this.x, capacity);
+                this.y = Arrays.copyOf(this.y, capacity);
+                this.z = Arrays.copyOf(this.z, capacity);
+                this.blockX = Arrays.copyOf(this.blockX, capacity);
+                this.blockZ = Arrays.copyOf(this.blockZ, capacity);
+            }
+            this.slot[size] = slot;
+            this.generation[size] = generation;
+            this.player[size] = player;
+            this.world[size] = world;
+            this.x[size] = x;
+            this.y[size] = y;
+            this.z[size] = z;
+            this.blockX[size] = blockX;
+            this.blockZ[size] = blockZ;
+            size++;
+        }
+
+        public void reset() {
+            Arrays.fill(player, 0, size, null);
+            Arrays.fill(world, 0, size, null);
+            size = 0;
+            refresh = false;
+            anomalies = null;
+            raster = null;
+            diffusion = null;
+            contamination = null;
+        }
+    }
+
+    // Действия для основного потока; один пакет на срез снимка
+    public static final class Batch {
+        public static final byte ENTER = 0;
+        public static final byte STAY = 1;
+        public static final byte RADIATION = 2;
+
+        public int size;
+        int[] entry = new int[32];
+        public byte[] kind = new byte[32];
+        Anomaly[] anomaly = new Anomaly[32];
+        int[] amount = new int[32];
+
+        void add(int entry, byte kind, Anomaly anomaly, int amount) {
+            if (size == this.entry.length) {
+                int capacity = size * 2;
+                this.entry = Arrays.copyOf(this.entry, capacity);
+                this.kind = Arrays.copyOf(this.kind, capacity);
+                this.anomaly = Arrays.copyOf(this.anomaly, capacity);
+                this.amount = Arrays.copyOf(this.amount, capacity);
+            }
+            this.entry[size] = entry;
+            this.kind[size] = kind;
+            this.anomaly[size] = anomaly;
+            this.amount[size] = amount;
+            size++;
+        }
+
+        void reset() {
+            Arrays.fill(anomaly, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private final XFilesPlugin plugin;
+    private final PlayerSlots slots;
+    private final PlayerZoneTracker tracker;
+    private final AnomalyIndex anomalyIndex;
+    private final RadiationRaster raster;
+    private final RadiationDiffusion diffusion;
+    private final ContaminationStore contamination;
+
+    // Этапы 1 и 3 (основной поток)
+    private final Snapshot snapshot;
+    private ForkJoinTask<?> pending;
+    private boolean applying;
+    private int applyPart;
+    private int applyPos;
+    private long ticksSinceRefresh;
+
+    // Этап 2 (поток расчёта)
+    private final ExposureCalculator calculator;
+
+    public ExposurePipeline(XFilesPlugin plugin, PlayerZoneTracker tracker,
+                            AnomalyIndex anomalyIndex, RadiationRaster raster,
+                            RadiationDiffusion diffusion, ContaminationStore contamination) {
+        this.plugin = plugin;
+        this.slots = plugin.getPlayerSlots();
+        this.tracker = tracker;
+        this.anomalyIndex = anomalyIndex;
+        this.raster = raster;
+        this.diffusion = diffusion;
+        this.contamination = contamination;
+
+        this.snapshot = new Snapshot();
+        this.calculator = new ExposureCalculator();
+    }
+
+    // Вызывается каждый тик из основного потока
+    public void tick() {
+        XFilesSettings settings = plugin.getConfigManager().getSettings();
+        ticksSinceRefresh++;
+
+        if (pending != null) {
+            if (!pending.isDone()) return;
+
+            Throwable failure = pending.getException();
+            pending = null;
+            plugin.getMetrics().count(Metrics.ANOMALIES_TESTED, calculator.getTested());
+            if (failure != null) {
+                plugin.getLogger().log(Level.WARNING, "Ошибка расчёта облучения", failure);
+                finishBatch();
+            } else {
+                applying = true;
+                applyPart = 0;
+                applyPos = 0;
+            }
+        }
+
+        if (applying && !apply(System.nanoTime() + settings.applyBudgetMicros * 1000L)) {
+            return; // Бюджет тика исчерпан, продолжим на следующем
+        }
+
+        // Предыдущий пакет применён полностью - снимаем новое состояние
+        boolean refresh = ticksSinceRefresh >= settings.effectRefreshInterval;
+        tracker.capture(snapshot, refresh);
+        if (refresh) {
+            ticksSinceRefresh = 0;
+        }
+        if (snapshot.size == 0) {
+            snapshot.reset();
+            return;
+        }
+
+        snapshot.refresh = refresh;
+        snapshot.anomalies = anomalyIndex.snapshot();
+        snapshot.raster = raster.snapshot();
+        snapshot.diffusion = diffusion.snapshot();
+        snapshot.contamination = contamination;
+        Metrics metrics = plugin.getMetrics();
+        int zoneCount = plugin.getRadiationManager().getZoneCount();
+        pending = plugin.getComputePool().submit(() -> {
+            FlightEvents.ExposureScan event = new FlightEvents.ExposureScan();
+            event.begin();
+            long started = metrics.start();
+            calculator.compute(snapshot);
+            metrics.stop(Metrics.EXPOSURE_COMPUTE, started);
+            event.end();
+            if (event.shouldCommit()) {
+                event.players = snapshot.size;
+                event.anomaliesScanned = calculator.getTested();
+                event.zoneCount = zoneCount;
+                event.refresh = snapshot.refresh;
+                event.commit();
+            }
+        });
+    }
+
+    public void shutdown() {
+        if (pending != null) pending.cancel(false);
+        pending = null;
+        applying = false;
+        snapshot.reset();
+    }
+
+    // ---------- Этап 3: применение ----------
+
+    // Возвращает true, если пакет применён полностью
+    private boolean apply(long deadline) {
+        AnomalyManager anomalyManager = plugin.getAnomalyManager();
+        RadiationManager radiationManager = plugin.getRadiationManager();
+        Snapshot snap = snapshot;
+        Metrics metrics = plugin.getMetrics();
+        int applied = 0;
+        int effects = 0;
+
+        for (; applyPart < calculator.getPartCount(); applyPart++, applyPos = 0) {
+            Batch batch = calculator.getPart(applyPart);
+            while (applyPos < batch.size) {
+                if ((++applied & 7) == 0 && System.nanoTime() > deadline) {
+                    metrics.count(Metrics.EFFECTS_APPLIED, effects);
+                    return false;
+                }
+
+                int pos = applyPos++;
+                int entry = batch.entry[pos];
+                Player player = snap.player[entry];
+                if (slots.getPlayer(snap.slot[entry]) != player) continue; // Игрок уже вышел
+                effects++;
+
+                Anomaly anomaly = batch.anomaly[pos];
+                switch (batch.kind[pos]) {
+                    case Batch.ENTER:
+                        if (anomalyManager.isActive(anomaly)) anomalyManager.enterAnomaly(player, anomaly);
+                        break;
+                    case Batch.STAY:
+                        if (anomalyManager.isActive(anomaly)) anomalyManager.refreshAnomaly(player, anomaly);
+                        break;
+                    case Batch.RADIATION:
+                        radiationManager.exposeToRadiation(player, batch.amount[pos]);
+                        break;
+                }
+            }
+        }
+
+        metrics.count(Metrics.EFFECTS_APPLIED, effects);
+        finishBatch();
+        return true;
+    }
+
+    private void finishBatch() {
+        calculator.reset();
+        applying = false;
+        snapshot.reset();
+    }
+}
@@ -0,0 +1,220 @@
+package com.yourserver.xfiles;
+
+import jdk.jfr.*;
+
+// События JDK Flight Recorder: в записи JFR видно, какая операция плагина пришлась на скачок
+// задержки. Пороги по умолчанию заданы аннотациями, а включение и пороги для записи - в
+// xfiles.jfc (копируется в папку плагина). Без активной записи событие не стоит почти ничего:
+// поля заполняются только после end() и shouldCommit(), который и сверяет длительность с порогом.
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    // ---------- Аномалии ----------
+
+    @Name("xfiles.AnomalyCreate")
+    @Label("Создание аномалии")
+    @Category({"XFiles", "Аномалии"})
+    @Description("Создание аномалии: индекс, сохранение и эффекты появления")
+    @StackTrace(false)
+    public static final class AnomalyCreate extends Event {
+        @Label("Аномалия")
+        public String anomalyId;
+
+        @Label("Тип")
+        public String anomalyType;
+
+        @Label("Радиус, блоков")
+        public int radius;
+
+        @Label("Мир")
+        public String world;
+
+        @Label("X")
+        public int x;
+
+        @Label("Y")
+        public int y;
+
+        @Label("Z")
+        public int z;
+
+        @Label("Активных аномалий")
+        public int activeAnomalies;
+    }
+
+    @Name("xfiles.AnomalyRemove")
+    @Label("Удаление аномалии")
+    @Category({"XFiles", "Аномалии"})
+    @Description("Удаление аномалии командой или по истечении срока")
+    @StackTrace(false)
+    public static final class AnomalyRemove extends Event {
+        @Label("Аномалия")
+        public String anomalyId;
+
+        @Label("Тип")
+        public String anomalyType;
+
+        @Label("По сроку")
+        public boolean expired;
+
+        @Label("Активных аномалий")
+        public int activeAnomalies;
+    }
+
+    // Срабатывает на каждого игрока в аномалии, поэтому выключено по умолчанию
+    @Name("xfiles.AnomalyApply")
+    @Label("Действие аномалии")
+    @Category({"XFiles", "Аномалии"})
+    @Description("Применение эффектов аномалии к игроку при входе или продлении")
+    @Enabled(false)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class AnomalyApply extends Event {
+        @Label("Аномалия")
+        public String anomalyId;
+
+        @Label("Тип")
+        public String anomalyType;
+
+        @Label("Игрок")
+        public String player;
+
+        @Label("Вход")
+        public boolean entered;
+    }
+
+    // ---------- Радиация ----------
+
+    @Name("xfiles.RadiationZoneCreate")
+    @Label("Создание радиационной зоны")
+    @Category({"XFiles", "Радиация"})
+    @StackTrace(false)
+    public static final class ZoneCreate extends Event {
+        @Label("Зона")
+        public int zoneId;
+
+        @Label("Уровень")
+        public int level;
+
+        @Label("Радиус, блоков")
+        public int blockRadius;
+
+        @Label("Зон всего")
+        public int zoneCount;
+    }
+
+    @Name("xfiles.RadiationZoneExpire")
+    @Label("Истечение радиационной зоны")
+    @Category({"XFiles", "Радиация"})
+    @StackTrace(false)
+    public static final class ZoneExpire extends Event {
+        @Label("Зона")
+        public int zoneId;
+
+        @Label("Уровень")
+        public int level;
+
+        @Label("Радиус, блоков")
+        public int blockRadius;
+
+        @Label("Зон всего")
+        public int zoneCount;
+    }
+
+    @Name("xfiles.ExposureScan")
+    @Label("Расчёт облучения")
+    @Category({"XFiles", "Радиация"})
+    @Description("Этап расчёта конвейера облучения в пуле потоков: аномалии, зоны, заражение")
+    @Threshold("2 ms")
+    @StackTrace(false)
+    public static final class ExposureScan extends Event {
+        @Label("Игроков")
+        public int players;
+
+        @Label("Проверено аномалий")
+        public long anomaliesScanned;
+
+        @Label("Радиационных зон")
+        public int zoneCount;
+
+        @Label("Тик продления")
+        public boolean refresh;
+    }
+
+    @Name("xfiles.RadiationUpdate")
+    @Label("Эффекты радиации")
+    @Category({"XFiles", "Радиация"})
+    @Description("Обход облучённых игроков: распад, эффекты и предупреждения")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class RadiationUpdate extends Event {
+        @Label("Облучённых игроков")
+        public int irradiated;
+
+        @Label("Обработано игроков")
+        public int affected;
+
+        @Label("Радиационных зон")
+        public int zoneCount;
+    }
+
+    // ---------- Реакторы ----------
+
+    @Name("xfiles.ReactorTick")
+    @Label("Тик реакторов")
+    @Category({"XFiles", "Реакторы"})
+    @Description("Тик движка реакторов: шаги реакторов и продвижение ударных волн")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class ReactorTick extends Event {
+        @Label("Реакторов")
+        public int reactors;
+
+        @Label("Шагов реакторов")
+        public int stepped;
+
+        @Label("Ударных волн")
+        public int waves;
+
+        @Label("Блоков волн")
+        public int waveBlocks;
+    }
+
+    @Name("xfiles.ReactorMeltdown")
+    @Label("Расплавление реактора")
+    @Category({"XFiles", "Реакторы"})
+    @Description("Расплавление: взрыв ядра, запуск ударной волны и радиационная зона")
+    @StackTrace(false)
+    public static final class ReactorMeltdown extends Event {
+        @Label("Реактор")
+        public int reactorId;
+
+        @Label("Температура")
+        public int temperature;
+
+        @Label("Радиус взрыва, блоков")
+        public int blockRadius;
+
+        @Label("Радиус заражения, блоков")
+        public int radiationRadius;
+    }
+
+    // Длится от расплавления до последнего разрушенного блока ударной волны
+    @Name("xfiles.ReactorExplosion")
+    @Label("Ударная волна реактора")
+    @Category({"XFiles", "Реакторы"})
+    @Description("Ударная волна расплавления от начала до конца, растянутая на тики")
+    @StackTrace(false)
+    public static final class ReactorExplosion extends Event {
+        @Label("Радиус, блоков")
+        public int blockRadius;
+
+        @Label("Блоков обработано")
+        public int blocks;
+
+        @Label("Тиков")
+        public int ticks;
+    }
+}
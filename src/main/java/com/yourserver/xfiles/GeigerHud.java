@@ -0,0 +1,177 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Sound;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Счётчик Гейгера на полосе босса: у каждого игрока своя полоса с накопленной дозой
+// (заполнение и цвет по ступени) и фоном в точке, где он стоит. Показания снимаются раз
+// в radiation-settings.hud.interval тиков, со сдвигом по слоту, чтобы игроки не совпадали
+// по тику. Пакет уходит, только если изменилось показанное значение: заголовок, заполнение,
+// цвет и видимость сравниваются с отправленными. Полоса висит на экране сама, поэтому
+// повторять неизменные показания не нужно. Щелчки слышит только сам игрок, их частота
+// растёт с фоном; отправляются через EffectEmitter как косметические.
+public class GeigerHud {
+
+    // Ступени как у предупреждений: <25, <50, <75, <90, выше
+    private static final BarColor[] BAR_COLORS = {
+        BarColor.GREEN, BarColor.YELLOW, BarColor.YELLOW, BarColor.RED, BarColor.RED
+    };
+    private static final String[] TITLE_COLORS = {
+        ChatColor.GREEN.toString(), ChatColor.YELLOW.toString(), ChatColor.GOLD.toString(),
+        ChatColor.RED.toString(), ChatColor.DARK_RED.toString()
+    };
+
+    private final XFilesPlugin plugin;
+    private final ConfigManager config;
+    private final PlayerSlots slots;
+    private final RadiationStore doses;
+    private final RadiationManager radiation;
+
+    // Состояние по слотам: полоса и последние отправленные показания
+    private BossBar[] bars = new BossBar[64];
+    private int[] shownDose = new int[64];
+    private int[] shownField = new int[64];
+    private int[] field = new int[64];        // последний замер фона, по нему считаются щелчки
+    private boolean[] visible = new boolean[64];
+    private int tick;
+
+    public GeigerHud(XFilesPlugin plugin, PlayerSlots slots, RadiationStore doses, RadiationManager radiation) {
+        this.plugin = plugin;
+        this.config = plugin.getConfigManager();
+        this.slots = slots;
+        this.doses = doses;
+        this.radiation = radiation;
+    }
+
+    // Вызывается раз в тик из основного потока
+    public void tick() {
+        XFilesSettings settings = config.getSettings();
+        if (!settings.hudEnabled) {
+            if (tick != 0) clear();
+            return;
+        }
+        tick++;
+
+        int interval = settings.hudInterval;
+        int maxLevel = settings.maxRadiationLevel;
+        double clickChance = settings.hudMaxClicks / 20.0 / maxLevel; // вероятность щелчка за тик на единицу фона
+        long now = System.currentTimeMillis();
+        int highWater = slots.getHighWater();
+        ensureCapacity(highWater);
+        long sent = 0;
+
+        for (int slot = 0; slot < highWater; slot++) {
+            Player player = slots.getPlayer(slot);
+            if (player == null) continue;
+
+            if ((tick + slot) % interval == 0) {
+                field[slot] = radiation.getRadiationLevelAt(player.getLocation());
+                sent += show(player, slot, doses.getLevel(slot, now), field[slot], maxLevel);
+            }
+
+            if (field[slot] > 0 && ThreadLocalRandom.current().nextDouble() < field[slot] * clickChance) {
+                plugin.getEffectEmitter().sound(player, Sound.BLOCK_NOTE_BLOCK_HAT, 0.4f,
+                    1.6f + ThreadLocalRandom.current().nextFloat() * 0.4f, true);
+            }
+        }
+        plugin.getMetrics().count(Metrics.HUD_UPDATES, sent);
+    }
+
+    // Игрок вышел: слот может достаться другому
+    public void forget(int slot) {
+        if (slot < 0 || slot >= bars.length) return;
+        if (bars[slot] != null) bars[slot].removeAll();
+        bars[slot] = null;
+        shownDose[slot] = 0;
+        shownField[slot] = 0;
+        field[slot] = 0;
+        visible[slot] = false;
+    }
+
+    public void clear() {
+        for (BossBar bar : bars) {
+            if (bar != null) bar.removeAll();
+        }
+        Arrays.fill(bars, null);
+        Arrays.fill(shownDose, 0);
+        Arrays.fill(shownField, 0);
+        Arrays.fill(field, 0);
+        Arrays.fill(visible, false);
+        tick = 0;
+    }
+
+    // Отправляет только отличия от показанного; возвращает число изменений полосы
+    private int show(Player player, int slot, int dose, int ambient, int maxLevel) {
+        BossBar bar = bars[slot];
+        if (dose <= 0 && ambient <= 0) {
+            if (!visible[slot]) return 0;
+            visible[slot] = false;
+            bar.setVisible(false);
+            return 1;
+        }
+
+        int updates = 0;
+        int tier = tier(dose);
+        if (bar == null) {
+            bar = Bukkit.createBossBar(title(tier, dose, ambient), BAR_COLORS[tier], BarStyle.SEGMENTED_10);
+            bar.setProgress(Math.min(1.0, (double) dose / maxLevel));
+            bar.addPlayer(player);
+            bars[slot] = bar;
+            shownDose[slot] = dose;
+            shownField[slot] = ambient;
+            visible[slot] = true;
+            return 1;
+        }
+
+        if (!visible[slot]) {
+            visible[slot] = true;
+            bar.setVisible(true);
+            updates++;
+        }
+        if (dose != shownDose[slot]) {
+            if (tier != tier(shownDose[slot])) {
+                bar.setColor(BAR_COLORS[tier]);
+                updates++;
+            }
+            bar.setProgress(Math.min(1.0, (double) dose / maxLevel));
+            updates++;
+        }
+        if (dose != shownDose[slot] || ambient != shownField[slot]) {
+            bar.setTitle(title(tier, dose, ambient));
+            shownDose[slot] = dose;
+            shownField[slot] = ambient;
+            updates++;
+        }
+        return updates;
+    }
+
+    private String title(int tier, int dose, int ambient) {
+        return TITLE_COLORS[tier] + config.getTemplate(Messages.RADIATION_HUD).render(dose, ambient);
+    }
+
+    private static int tier(int level) {
+        if (level < 25) return 0;
+        if (level < 50) return 1;
+        if (level < 75) return 2;
+        if (level < 90) return 3;
+        return 4;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= bars.length) return;
+        int grown = Math.max(bars.length * 2, capacity);
+        bars = Arrays.copyOf(bars, grown);
+        shownDose = Arrays.copyOf(shownDose, grown);
+        shownField = Arrays.copyOf(shownField, grown);
+        field = Arrays.copyOf(field, grown);
+        visible = Arrays.copyOf(visible, grown);
+    }
+}
@@ -0,0 +1,85 @@
+package com.yourserver.xfiles;
+
+import java.util.Arrays;
+
+// Хеш-таблица long -> int без упаковки (открытая адресация, линейное пробирование).
+// Значения неотрицательные: в ячейке хранится value + 1, ноль означает пустую ячейку.
+public class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // Значение по ключу или MISSING
+    public int get(long key) {
+        for (int i = slot(key, mask); values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i] - 1;
+        }
+        return MISSING;
+    }
+
+    public void put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("negative values are not supported");
+
+        int i = slot(key, mask);
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value + 1;
+                return;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value + 1;
+        if (++size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0) continue;
+            int j = slot(oldKeys[i], mask);
+            while (values[j] != 0) {
+                j = (j + 1) & mask;
+            }
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+// Ударная волна расплавления реактора. Форма взрыва (шар с неровным краем) считается
+// в фоне и раскладывается по оболочкам от центра наружу; основной поток каждый тик
+// разрушает очередную порцию блоков в пределах бюджета блоков и времени, фронт волны
+// продвигается не быстрее оболочки за тик. Радиация засевается импульсами по мере
+// расширения, игроки получают урон, когда их проходит фронт.
+public final class MeltdownWave {
+
+    private static final int BIAS = 512;   // смещение координат при упаковке в int
+    private static final int PULSES = 4;   // импульсов заражения за волну
+    private static final float UNBREAKABLE = 1200.0f; // обсидиан и прочнее выдерживают волну
+
+    // Смещения блоков, отсортированные по оболочкам: оболочка s - offsets[shellStart[s]..shellStart[s+1])
+    static final class Shape {
+        final int radius;
+        final int[] offsets;
+        final int[] shellStart;
+
+        Shape(int radius, int[] offsets, int[] shellStart) {
+            this.radius = radius;
+            this.offsets = offsets;
+            this.shellStart = shellStart;
+        }
+    }
+
+    private final World world;
+    private final Location center;
+    private final int cx, cy, cz;
+    private final int radiationRadius;
+    private final int radiationLevel;
+    private final int fireChance;
+    private final CompletableFuture<Shape> shape;
+    private final long seed;
+
+    private int front = -1;   // оболочка, до которой дошёл фронт
+    private int reached = -1; // последняя полностью разрушенная оболочка
+    private int cursor;
+    private int pulses;
+    private boolean done;
+
+    // Событие JFR на всю волну: от расплавления до последнего блока
+    private final FlightEvents.ReactorExplosion event = new FlightEvents.ReactorExplosion();
+    private int blocks;
+    private int ticks;
+
+    // Форма считается в пуле вычислений плагина, а не в общем пуле JVM
+    public MeltdownWave(Location center, int radius, int radiationRadius, int radiationLevel, int fireChance, long seed,
+                        ForkJoinPool pool) {
+        this.world = center.getWorld();
+        this.center = center.clone();
+        this.cx = center.getBlockX();
+        this.cy = center.getBlockY();
+        this.cz = center.getBlockZ();
+        this.radiationRadius = radiationRadius;
+        this.radiationLevel = radiationLevel;
+        this.fireChance = fireChance;
+        this.seed = seed;
+        this.shape = CompletableFuture.supplyAsync(() -> computeShape(radius, seed), pool);
+        event.blockRadius = radius;
+        event.begin();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    // Шар радиуса radius, край которого сдвинут шумом до полутора блоков в обе стороны.
+    // Два прохода по кубу (подсчёт и раскладка по оболочкам) вместо хранения расстояний.
+    static Shape computeShape(int radius, long seed) {
+        int reach = radius + 2;
+        int[] counts = new int[radius + 2];
+        int total = 0;
+
+        for (int dx = -reach; dx <= reach; dx++) {
+            for (int dy = -reach; dy <= reach; dy++) {
+                for (int dz = -reach; dz <= reach; dz++) {
+                    int shell = shellOf(dx, dy, dz, radius, seed);
+                    if (shell < 0) continue;
+                    counts[shell + 1]++;
+                    total++;
+                }
+            }
+        }
+
+        for (int s = 1; s < counts.length; s++) counts[s] += counts[s - 1];
+        int[] shellStart = counts.clone();
+        int[] offsets = new int[total];
+
+        for (int dx = -reach; dx <= reach; dx++) {
+            for (int dy = -reach; dy <= reach; dy++) {
+                for (int dz = -reach; dz <= reach; dz++) {
+                    int shell = shellOf(dx, dy, dz, radius, seed);
+                    if (shell < 0) continue;
+                    offsets[counts[shell]++] = ((dx + BIAS) << 20) | ((dy + BIAS) << 10) | (dz + BIAS);
+                }
+            }
+        }
+        return new Shape(radius, offsets, shellStart);
+    }
+
+    private static int shellOf(int dx, int dy, int dz, int radius, long seed) {
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz) + noise(dx, dy, dz, seed) * 1.5;
+        return distance > radius ? -1 : Math.max(0, (int) distance);
+    }
+
+    // Детерминированный шум [-1, 1] по координатам
+    private static double noise(int x, int y, int z, long seed) {
+        long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (z * 0x165667B19E3779F9L);
+        h = (h ^ (h >>> 29)) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return ((h & 0xFFFF) / 32767.5) - 1.0;
+    }
+
+    // Шаг волны; возвращает число обработанных блоков
+    public int tick(int blockBudget, long deadline, RadiationManager radiation, EffectEmitter emitter) {
+        if (done) return 0;
+        if (!shape.isDone()) return 0;
+
+        Shape s = shape.getNow(null);
+        if (s == null || shape.isCompletedExceptionally()) {
+            finish();
+            return 0;
+        }
+        ticks++;
+
+        if (front < s.radius) front++;
+        int limit = s.shellStart[front + 1];
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight();
+
+        int used = 0;
+        while (cursor < limit && used < blockBudget) {
+            // Время проверяем пачками, System.nanoTime не бесплатен
+            if ((used & 63) == 63 && System.nanoTime() > deadline) break;
+            int packed = s.offsets[cursor++];
+            used++;
+            int x = cx + ((packed >>> 20) & 1023) - BIAS;
+            int y = cy + ((packed >>> 10) & 1023) - BIAS;
+            int z = cz + (packed & 1023) - BIAS;
+            if (y < minY || y >= maxY || !world.isChunkLoaded(x >> 4, z >> 4)) continue;
+            destroy(world.getBlockAt(x, y, z), s, cursor);
+        }
+
+        int previous = reached;
+        while (reached < s.radius && cursor >= s.shellStart[reached + 2]) {
+            reached++;
+        }
+        if (reached > previous) {
+            advance(previous, s.radius, radiation, emitter);
+        }
+
+        blocks += used;
+        if (cursor >= s.offsets.length) {
+            // Оставшиеся импульсы заражения
+            while (pulses < PULSES) pulse(radiation);
+            finish();
+        }
+        return used;
+    }
+
+    private void finish() {
+        done = true;
+        event.end();
+        if (event.shouldCommit()) {
+            event.blocks = blocks;
+            event.ticks = ticks;
+            event.commit();
+        }
+    }
+
+    private void destroy(Block block, Shape s, int index) {
+        Material type = block.getType();
+        if (type.isAir() || type.getBlastResistance() >= UNBREAKABLE) return;
+
+        // Внешние оболочки иногда загораются; без физики и выпадения предметов
+        boolean outer = index >= s.shellStart[Math.max(0, s.radius - 1)];
+        if (outer && fireChance > 0 && (int) ((noise(block.getX(), block.getY(), block.getZ(), ~seed) + 1.0) * 50) < fireChance
+            && block.getRelative(0, -1, 0).getType().isSolid()) {
+            block.setType(Material.FIRE, false);
+        } else {
+            block.setType(Material.AIR, false);
+        }
+    }
+
+    // Фронт прошёл оболочки (from, reached]: урон игрокам, частицы на фронте, заражение
+    private void advance(int from, int radius, RadiationManager radiation, EffectEmitter emitter) {
+        double inner = from + 1.0;
+        double outer = reached + 1.0;
+        for (Player player : world.getPlayers()) {
+            double distance = Math.sqrt(player.getLocation().distanceSquared(center));
+            if (distance < inner || distance >= outer) continue;
+            player.damage(2.0 + 38.0 * Math.max(0.0, 1.0 - distance / Math.max(1, radius)));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            double angle = i * Math.PI / 4;
+            Location at = center.clone().add(Math.cos(angle) * outer, 0, Math.sin(angle) * outer);
+            emitter.particle(at, Particle.EXPLOSION, 1, 0, true);
+        }
+
+        while (pulses < PULSES && reached + 1 >= (radius + 1) * (pulses + 1) / PULSES) {
+            pulse(radiation);
+        }
+    }
+
+    // Импульс k заражает круг k/PULSES радиуса; в центре в сумме набирается radiationLevel
+    private void pulse(RadiationManager radiation) {
+        pulses++;
+        int radius = Math.max(1, radiationRadius * pulses / PULSES);
+        radiation.contaminate(center, radius, Math.max(1, radiationLevel / PULSES));
+    }
+}
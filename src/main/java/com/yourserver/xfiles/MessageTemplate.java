@@ -0,0 +1,116 @@
+package com.yourserver.xfiles;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Сообщение из messages.yml, разобранное один раз при загрузке: цветовые коды уже
+// переведены, плейсхолдеры {name} заменены номерами аргументов. Подстановка - один
+// проход по частям в переиспользуемый StringBuilder. Сообщения без плейсхолдеров
+// дополнительно хранятся готовым Component для отправки без разбора строки.
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final String text;
+    private final String[] literals; // literals.length == slots.length + 1
+    private final int[] slots;       // номер аргумента для каждого плейсхолдера
+    private final Component component;
+
+    private MessageTemplate(String text, String[] literals, int[] slots) {
+        this.text = text;
+        this.literals = literals;
+        this.slots = slots;
+        this.component = slots.length == 0 ? LegacyComponentSerializer.legacySection().deserialize(text) : null;
+    }
+
+    // params - имена плейсхолдеров в порядке аргументов render; неизвестные {name} остаются текстом
+    public static MessageTemplate compile(String raw, String... params) {
+        String text = ChatColor.translateAlternateColorCodes('&', raw);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int start = 0;
+        int open = text.indexOf('{');
+        while (open >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) break;
+
+            int slot = indexOf(params, text, open + 1, close);
+            if (slot >= 0) {
+                literals.add(text.substring(start, open));
+                slots.add(slot);
+                start = close + 1;
+            }
+            open = text.indexOf('{', slot >= 0 ? close + 1 : open + 1);
+        }
+        literals.add(text.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new MessageTemplate(text, literals.toArray(new String[0]), slotArray);
+    }
+
+    private static int indexOf(String[] params, String text, int from, int to) {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].length() == to - from && text.startsWith(params[i], from)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isStatic() {
+        return slots.length == 0;
+    }
+
+    // Текст без подстановки (для шаблонов с плейсхолдерами - с исходными {name})
+    public String text() {
+        return text;
+    }
+
+    public Component component() {
+        return component;
+    }
+
+    public String render(Object a) {
+        return render(a, null, null, null);
+    }
+
+    public String render(Object a, Object b) {
+        return render(a, b, null, null);
+    }
+
+    public String render(Object a, Object b, Object c) {
+        return render(a, b, c, null);
+    }
+
+    public String render(Object a, Object b, Object c, Object d) {
+        if (slots.length == 0) return text;
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            switch (slots[i]) {
+                case 0 -> builder.append(a);
+                case 1 -> builder.append(b);
+                case 2 -> builder.append(c);
+                default -> builder.append(d);
+            }
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+    // Статическое сообщение уходит готовым компонентом, без разбора legacy-строки
+    public void send(Audience target) {
+        target.sendMessage(component != null ? component : LegacyComponentSerializer.legacySection().deserialize(text));
+    }
+}
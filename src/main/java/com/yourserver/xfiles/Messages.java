@@ -0,0 +1,59 @@
+package com.yourserver.xfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Сообщения с плейсхолдерами. Порядок имён в ключе задаёт порядок аргументов
+// MessageTemplate.render (не больше четырёх).
+public final class Messages {
+
+    public static final class Key {
+        final int id;
+        final String path;
+        final String[] params;
+
+        private Key(int id, String path, String[] params) {
+            this.id = id;
+            this.path = path;
+            this.params = params;
+        }
+    }
+
+    private static final List<Key> KEYS = new ArrayList<>();
+
+    public static final Key ANOMALY_CREATED = key("anomaly.created", "type", "x", "y", "z");
+    public static final Key ANOMALY_INFO = key("anomaly.info", "type", "radius", "time");
+    public static final Key ANOMALY_AUTO_SPAWN = key("auto-events.anomaly-spawn", "type");
+
+    public static final Key REACTOR_STARTED = key("reactor.started", "temp", "id");
+    public static final Key REACTOR_STATUS = key("reactor.status", "temp", "status", "id");
+    public static final Key REACTOR_CRITICAL = key("reactor.critical", "temp", "id");
+
+    public static final Key RADIATION_NORMAL = key("radiation.normal", "level");
+    public static final Key RADIATION_LOW = key("radiation.low", "level");
+    public static final Key RADIATION_MEDIUM = key("radiation.medium", "level");
+    public static final Key RADIATION_HIGH = key("radiation.high", "level");
+    public static final Key RADIATION_DEADLY = key("radiation.deadly", "level");
+    public static final Key RADIATION_MAP = key("radiation.map", "radius");
+    public static final Key RADIATION_MAP_COOLDOWN = key("radiation.map-cooldown", "seconds");
+    public static final Key RADIATION_HUD = key("radiation.hud", "level", "field");
+
+    public static final Key ALERT_REPEATED = key("alerts.repeated", "count", "seconds");
+
+    public static final Key TRACE_STARTED = key("trace.started", "file");
+    public static final Key TRACE_STOPPED = key("trace.stopped", "file", "records");
+
+    private Messages() {
+    }
+
+    private static Key key(String path, String... params) {
+        Key key = new Key(KEYS.size(), path, params);
+        KEYS.add(key);
+        return key;
+    }
+
+    static List<Key> keys() {
+        return Collections.unmodifiableList(KEYS);
+    }
+}
@@ -0,0 +1,293 @@
+package com.yourserver.xfiles;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Встроенные замеры подсистем: таймеры горячих путей (вызовы, наносекунды, гистограмма)
+// и счётчики событий. Счётчики полосатые (LongAdder), поэтому основной поток и пул потоков
+// пишут без блокировок. Гистограмма логарифмическая с фиксированными корзинами: четыре
+// корзины на каждую степень двойки, погрешность перцентиля не больше четверти значения.
+// Выключенные замеры стоят одной проверки флага: start() возвращает 0 и stop() ничего не делает.
+public class Metrics {
+
+    private static final int SUB_BITS = 2;                  // 4 корзины на степень двойки
+    private static final int BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+
+    public static final class Timer {
+        final int id;
+        final String name;
+
+        private Timer(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static final class Counter {
+        final int id;
+        final String name;
+
+        private Counter(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final List<Timer> TIMERS = new ArrayList<>();
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+
+    public static final Timer PLAYER_MOVE = timer("player-move");
+    public static final Timer EXPOSURE_TICK = timer("exposure-tick");
+    public static final Timer EXPOSURE_COMPUTE = timer("exposure-compute");
+    public static final Timer RADIATION_UPDATE = timer("radiation-update");
+    public static final Timer RADIATION_DIFFUSION = timer("radiation-diffusion");
+    public static final Timer REACTOR_STEP = timer("reactor-step");
+    public static final Timer EXPIRY_TICK = timer("expiry-tick");
+    public static final Timer EFFECT_FLUSH = timer("effect-flush");
+
+    public static final Counter ANOMALIES_TESTED = counter("anomalies-tested");
+    public static final Counter EFFECTS_APPLIED = counter("effects-applied");
+    public static final Counter MESSAGES_SENT = counter("messages-sent");
+    public static final Counter HUD_UPDATES = counter("hud-updates");
+
+    private static Timer timer(String name) {
+        Timer timer = new Timer(TIMERS.size(), name);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(COUNTERS.size(), name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    public static List<Timer> timers() {
+        return Collections.unmodifiableList(TIMERS);
+    }
+
+    public static List<Counter> counters() {
+        return Collections.unmodifiableList(COUNTERS);
+    }
+
+    // Накопленные значения таймера
+    private static final class TimerData {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+        final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        TimerData() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void reset() {
+            calls.reset();
+            nanos.reset();
+            max.reset();
+            for (LongAdder bucket : buckets) bucket.reset();
+        }
+    }
+
+    // Неизменяемая выборка таймера: для отчёта и для разности между выгрузками в CSV
+    public static final class Sample {
+        public final long calls;
+        public final long nanos;
+        public final long max;
+        final long[] buckets;
+
+        Sample(long calls, long nanos, long max, long[] buckets) {
+            this.calls = calls;
+            this.nanos = nanos;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        // Разность с более ранней выборкой; max берётся из окна, переданного отдельно
+        public Sample since(Sample earlier, long windowMax) {
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = buckets[i] - earlier.buckets[i];
+            }
+            return new Sample(calls - earlier.calls, nanos - earlier.nanos, windowMax, delta);
+        }
+
+        public double meanNanos() {
+            return calls == 0 ? 0.0 : (double) nanos / calls;
+        }
+
+        // Верхняя граница корзины, в которую попал перцентиль p
+        public long percentile(double p) {
+            if (calls == 0) return 0L;
+            long rank = (long) Math.ceil(p * calls);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+    }
+
+    private final TimerData[] timers;
+    private final LongAdder[] counters;
+    private final LongAccumulator[] windowMax;
+    private volatile boolean enabled;
+    private volatile long ticks;
+    private volatile long startedAt = System.currentTimeMillis();
+
+    // Предыдущая выгрузка в CSV (только поток выгрузки)
+    private Sample[] dumped;
+    private long[] dumpedCounts;
+    private long dumpedTicks;
+
+    public Metrics() {
+        this.timers = new TimerData[TIMERS.size()];
+        this.windowMax = new LongAccumulator[TIMERS.size()];
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new TimerData();
+            windowMax[i] = new LongAccumulator(Math::max, 0L);
+        }
+        this.counters = new LongAdder[COUNTERS.size()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Начало замера: 0, если замеры выключены
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(Timer timer, long start) {
+        if (start == 0L) return;
+        long elapsed = Math.max(0L, System.nanoTime() - start);
+        TimerData data = timers[timer.id];
+        data.calls.increment();
+        data.nanos.add(elapsed);
+        data.max.accumulate(elapsed);
+        data.buckets[bucket(elapsed)].increment();
+        windowMax[timer.id].accumulate(elapsed);
+    }
+
+    public void count(Counter counter, long amount) {
+        if (enabled && amount != 0) counters[counter.id].add(amount);
+    }
+
+    // Вызывается каждый тик из основного потока: знаменатель для «вызовов за тик»
+    public void tick() {
+        if (enabled) ticks++;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Sample sample(Timer timer) {
+        TimerData data = timers[timer.id];
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = data.buckets[i].sum();
+        }
+        return new Sample(data.calls.sum(), data.nanos.sum(), data.max.get(), buckets);
+    }
+
+    // Максимум с предыдущего вызова (для окна выгрузки в CSV)
+    public long takeWindowMax(Timer timer) {
+        return windowMax[timer.id].getThenReset();
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.id].sum();
+    }
+
+    // Дописывает в CSV строки за окно с предыдущей выгрузки: по строке на таймер и счётчик.
+    // Вызывается из одного потока (фоновая задача), не из основного.
+    public void appendCsv(Path file) throws IOException {
+        long ticksNow = ticks;
+        long window = Math.max(1L, ticksNow - dumpedTicks);
+        if (dumped == null || ticksNow < dumpedTicks) {
+            dumped = new Sample[timers.length];
+            dumpedCounts = new long[counters.length];
+            window = Math.max(1L, ticksNow);
+        }
+
+        boolean fresh = !Files.exists(file);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (fresh) {
+                out.write("time,name,ticks,calls,calls_per_tick,mean_us,p50_us,p99_us,max_us\n");
+            }
+            String time = Instant.now().toString();
+            for (Timer timer : TIMERS) {
+                Sample total = sample(timer);
+                Sample earlier = dumped[timer.id];
+                Sample delta = earlier != null ? total.since(earlier, takeWindowMax(timer))
+                                               : total.since(EMPTY, takeWindowMax(timer));
+                dumped[timer.id] = total;
+                out.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,%.2f,%.2f,%.2f,%.2f%n", time, timer.name,
+                    window, delta.calls, (double) delta.calls / window, delta.meanNanos() / 1000.0,
+                    delta.percentile(0.50) / 1000.0, delta.percentile(0.99) / 1000.0, delta.max / 1000.0));
+            }
+            for (Counter counter : COUNTERS) {
+                long total = getCount(counter);
+                long delta = total - dumpedCounts[counter.id];
+                dumpedCounts[counter.id] = total;
+                out.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,,,,%n", time, counter.name,
+                    window, delta, (double) delta / window));
+            }
+        }
+        dumpedTicks = ticksNow;
+    }
+
+    private static final Sample EMPTY = new Sample(0L, 0L, 0L, new long[BUCKETS]);
+
+    public void reset() {
+        for (TimerData data : timers) data.reset();
+        for (LongAccumulator max : windowMax) max.reset();
+        for (LongAdder counter : counters) counter.reset();
+        ticks = 0;
+        startedAt = System.currentTimeMillis();
+    }
+
+    // Корзина: номер старшего бита и два следующих за ним бита
+    static int bucket(long nanos) {
+        if (nanos < (1L << SUB_BITS)) return (int) nanos;
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (msb - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return ((msb - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < (1 << SUB_BITS)) return bucket;
+        int msb = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        long sub = bucket & ((1 << SUB_BITS) - 1);
+        return ((1L << SUB_BITS | sub) + 1 << (msb - SUB_BITS)) - 1;
+    }
+}
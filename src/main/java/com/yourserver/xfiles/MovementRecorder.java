@@ -0,0 +1,184 @@
+package com.yourserver.xfiles;
+
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import com.yourserver.xfiles.RadiationManager.RadiationZone;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+// Запись трассы движения игроков (MovementTrace) для офлайн-прогона TraceReplay.
+// Включается командой /xfiles trace start: в начало трассы попадают игроки онлайн, активные
+// аномалии и радиационные зоны, дальше - смена блока, вход, выход, создание и удаление
+// аномалий и зон с номером тика от начала записи. Основной поток только кодирует записи
+// в память; раз в секунду накопленное уходит в поток записи, который сжимает его в файл.
+public class MovementRecorder {
+
+    private static final int FLUSH_BYTES = 1 << 16;
+
+    private final XFilesPlugin plugin;
+    private final Map<UUID, Integer> worlds = new HashMap<>();
+    private MovementTrace.Encoder encoder;
+    private ExecutorService writer;
+    private OutputStream out; // только поток записи
+    private File file;
+    private long tick;
+    private long maxTicks;
+
+    public MovementRecorder(XFilesPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public boolean isRecording() {
+        return encoder != null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void start(File file, long maxTicks) {
+        if (encoder != null) return;
+        this.file = file;
+        this.maxTicks = maxTicks;
+        this.tick = 0;
+        this.encoder = new MovementTrace.Encoder();
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "XFiles-Trace");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(() -> {
+            try {
+                file.getParentFile().mkdirs();
+                out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file), 1 << 16));
+                ((DataOutputStream) out).writeInt(MovementTrace.MAGIC);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Не удалось открыть файл трассы " + file, e);
+            }
+        });
+
+        // Начальное состояние: кто где стоит и что уже существует
+        PlayerSlots slots = plugin.getPlayerSlots();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            int slot = slots.slotOf(player);
+            join(slot);
+            move(slot, player.getLocation());
+        }
+        plugin.getAnomalyManager().recordAll(this);
+        plugin.getRadiationManager().recordZones(this);
+    }
+
+    // Останавливает запись; возвращает число записей
+    public long stop() {
+        if (encoder == null) return 0L;
+        long records = encoder.getRecords();
+        flush();
+        writer.execute(() -> {
+            try {
+                if (out != null) out.close();
+                out = null;
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Ошибка закрытия трассы", e);
+            }
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Трасса не успела записаться за 10 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        encoder = null;
+        writer = null;
+        worlds.clear();
+        return records;
+    }
+
+    // Вызывается каждый тик из основного потока
+    public void tick() {
+        if (encoder == null) return;
+        tick++;
+        if (tick >= maxTicks) {
+            long records = stop();
+            plugin.getLogger().info("Запись трассы остановлена по лимиту времени: " + file.getName()
+                + ", записей: " + records);
+            return;
+        }
+        if (tick % 20 == 0 || encoder.size() >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    public void move(int slot, Location to) {
+        if (encoder == null) return;
+        encoder.move(tick, slot, world(to.getWorld()), to.getBlockX(), to.getBlockY(), to.getBlockZ());
+    }
+
+    public void join(int slot) {
+        if (encoder == null) return;
+        encoder.join(tick, slot);
+    }
+
+    public void quit(int slot) {
+        if (encoder == null || slot < 0) return;
+        encoder.quit(tick, slot);
+    }
+
+    public void anomalyCreated(Anomaly anomaly) {
+        if (encoder == null) return;
+        Location location = anomaly.location;
+        encoder.anomalyAdded(tick, anomaly.id, world(location.getWorld()),
+                             location.getX(), location.getY(), location.getZ(), anomaly.radius);
+    }
+
+    public void anomalyRemoved(String id) {
+        if (encoder == null) return;
+        encoder.anomalyRemoved(tick, id);
+    }
+
+    public void zoneCreated(RadiationZone zone) {
+        if (encoder == null) return;
+        Location location = zone.location;
+        encoder.zoneAdded(tick, zone.id, world(location.getWorld()), location.getX(), location.getZ(),
+                          zone.radius, zone.level);
+    }
+
+    public void zoneRemoved(int id) {
+        if (encoder == null) return;
+        encoder.zoneRemoved(tick, id);
+    }
+
+    // Номер мира в трассе; первая встреча мира записывает его в таблицу
+    private int world(World world) {
+        Integer index = worlds.get(world.getUID());
+        if (index != null) return index;
+        int assigned = worlds.size();
+        worlds.put(world.getUID(), assigned);
+        encoder.world(tick, assigned, world.getUID(), world.getName());
+        return assigned;
+    }
+
+    private void flush() {
+        if (encoder.size() == 0) return;
+        byte[] bytes = encoder.drain();
+        writer.execute(() -> {
+            try {
+                if (out != null) out.write(bytes);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Ошибка записи трассы", e);
+            }
+        });
+    }
+}
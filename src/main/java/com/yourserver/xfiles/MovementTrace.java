@@ -0,0 +1,279 @@
+package com.yourserver.xfiles;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+// Формат трассы движения игроков (*.xft): GZIP-поток с заголовком "XFT1" и записями
+// [тип][тики с предыдущей записи: varint][поля]. Позиции игроков хранятся разностью с
+// прошлой позицией того же слота (zigzag varint), миры - номером из таблицы WORLD.
+// Кодирование идёт в память (основной поток сервера), сжатие и запись - в фоне.
+public final class MovementTrace {
+
+    public static final int MAGIC = 0x58465431; // "XFT1"
+
+    public static final byte WORLD = 0;          // номер, UUID, имя
+    public static final byte MOVE = 1;           // слот, мир, блок
+    public static final byte JOIN = 2;           // слот
+    public static final byte QUIT = 3;           // слот
+    public static final byte ANOMALY_ADD = 4;    // идентификатор, мир, x, y, z, радиус
+    public static final byte ANOMALY_REMOVE = 5; // идентификатор
+    public static final byte ZONE_ADD = 6;       // номер зоны, мир, x, z, радиус, уровень
+    public static final byte ZONE_REMOVE = 7;    // номер зоны
+
+    private MovementTrace() {
+    }
+
+    // Кодировщик записей в растущий буфер; только основной поток
+    public static final class Encoder {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private int[] lastWorld = new int[64];
+        private int[] lastX = new int[64];
+        private int[] lastY = new int[64];
+        private int[] lastZ = new int[64];
+        private long lastTick;
+        private long records;
+
+        public void world(long tick, int index, UUID id, String name) {
+            header(tick, WORLD);
+            varint(index);
+            write(() -> {
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+                out.writeUTF(name);
+            });
+        }
+
+        // Движение внутри того же блока не записывается
+        public void move(long tick, int slot, int world, int blockX, int blockY, int blockZ) {
+            ensureSlot(slot);
+            if (lastWorld[slot] == world && lastX[slot] == blockX && lastY[slot] == blockY && lastZ[slot] == blockZ) {
+                return;
+            }
+            header(tick, MOVE);
+            varint(slot);
+            varint(world);
+            varint(zigzag(blockX - lastX[slot]));
+            varint(zigzag(blockY - lastY[slot]));
+            varint(zigzag(blockZ - lastZ[slot]));
+            lastWorld[slot] = world;
+            lastX[slot] = blockX;
+            lastY[slot] = blockY;
+            lastZ[slot] = blockZ;
+        }
+
+        public void join(long tick, int slot) {
+            ensureSlot(slot);
+            header(tick, JOIN);
+            varint(slot);
+            lastWorld[slot] = -1;
+            lastX[slot] = lastY[slot] = lastZ[slot] = 0;
+        }
+
+        public void quit(long tick, int slot) {
+            header(tick, QUIT);
+            varint(slot);
+        }
+
+        public void anomalyAdded(long tick, String id, int world, double x, double y, double z, int radius) {
+            header(tick, ANOMALY_ADD);
+            write(() -> out.writeUTF(id));
+            varint(world);
+            write(() -> {
+                out.writeDouble(x);
+                out.writeDouble(y);
+                out.writeDouble(z);
+            });
+            varint(radius);
+        }
+
+        public void anomalyRemoved(long tick, String id) {
+            header(tick, ANOMALY_REMOVE);
+            write(() -> out.writeUTF(id));
+        }
+
+        public void zoneAdded(long tick, int zone, int world, double x, double z, int radius, int level) {
+            header(tick, ZONE_ADD);
+            varint(zone);
+            varint(world);
+            write(() -> {
+                out.writeDouble(x);
+                out.writeDouble(z);
+            });
+            varint(radius);
+            varint(level);
+        }
+
+        public void zoneRemoved(long tick, int zone) {
+            header(tick, ZONE_REMOVE);
+            varint(zone);
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public int size() {
+            return buffer.size();
+        }
+
+        // Забирает накопленные байты для записи в файл
+        public byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+
+        private void header(long tick, byte type) {
+            buffer.write(type);
+            varint((int) Math.max(0L, tick - lastTick));
+            lastTick = Math.max(lastTick, tick);
+            records++;
+        }
+
+        private void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer.write(value);
+        }
+
+        private void ensureSlot(int slot) {
+            if (slot >= lastX.length) {
+                int capacity = Math.max(lastX.length * 2, slot + 1);
+                lastWorld = Arrays.copyOf(lastWorld, capacity);
+                lastX = Arrays.copyOf(lastX, capacity);
+                lastY = Arrays.copyOf(lastY, capacity);
+                lastZ = Arrays.copyOf(lastZ, capacity);
+            }
+        }
+
+        // ByteArrayOutputStream не бросает IOException
+        private void write(IOAction action) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    // Последовательное чтение трассы; поля текущей записи заполняются next()
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private int[] lastX = new int[64];
+        private int[] lastY = new int[64];
+        private int[] lastZ = new int[64];
+
+        public byte type;
+        public long tick;
+        public int slot;
+        public int world;
+        public int blockX, blockY, blockZ;
+        public UUID worldId;
+        public String name; // имя мира или идентификатор аномалии
+        public int zone;
+        public double x, y, z;
+        public int radius;
+        public int level;
+
+        public Reader(InputStream stream) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream, 1 << 16), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Неизвестный формат трассы");
+            }
+        }
+
+        // false - конец трассы (в том числе оборванный последний кадр)
+        public boolean next() throws IOException {
+            try {
+                int read = in.read();
+                if (read < 0) return false;
+                type = (byte) read;
+                tick += varint();
+                switch (type) {
+                    case WORLD -> {
+                        world = varint();
+                        worldId = new UUID(in.readLong(), in.readLong());
+                        name = in.readUTF();
+                    }
+                    case MOVE -> {
+                        slot = varint();
+                        ensureSlot(slot);
+                        world = varint();
+                        blockX = lastX[slot] += unzigzag(varint());
+                        blockY = lastY[slot] += unzigzag(varint());
+                        blockZ = lastZ[slot] += unzigzag(varint());
+                    }
+                    case JOIN -> {
+                        slot = varint();
+                        ensureSlot(slot);
+                        lastX[slot] = lastY[slot] = lastZ[slot] = 0;
+                    }
+                    case QUIT -> slot = varint();
+                    case ANOMALY_ADD -> {
+                        name = in.readUTF();
+                        world = varint();
+                        x = in.readDouble();
+                        y = in.readDouble();
+                        z = in.readDouble();
+                        radius = varint();
+                    }
+                    case ANOMALY_REMOVE -> name = in.readUTF();
+                    case ZONE_ADD -> {
+                        zone = varint();
+                        world = varint();
+                        x = in.readDouble();
+                        z = in.readDouble();
+                        radius = varint();
+                        level = varint();
+                    }
+                    case ZONE_REMOVE -> zone = varint();
+                    default -> throw new IOException("Неизвестный тип записи трассы: " + type);
+                }
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        private int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Слишком длинный varint");
+        }
+
+        private void ensureSlot(int slot) {
+            if (slot >= lastX.length) {
+                int capacity = Math.max(lastX.length * 2, slot + 1);
+                lastX = Arrays.copyOf(lastX, capacity);
+                lastY = Arrays.copyOf(lastY, capacity);
+                lastZ = Arrays.copyOf(lastZ, capacity);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,317 @@
+package com.yourserver.xfiles;
+
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import com.yourserver.xfiles.RadiationManager.RadiationZone;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.Level;
+
+// Сохранение аномалий, радиационных зон, облучения игроков и реакторов между перезапусками.
+// Менеджеры сообщают об изменениях, здесь они кодируются в записи журнала (StateJournal);
+// периодически полное состояние записывается снимком, а журнал обнуляется.
+// Облучение игроков и температуры реакторов меняются слишком часто, поэтому пишутся пачкой раз в flush-interval:
+// уровень хранится вместе с моментом обновления, и распад за время простоя считается лениво.
+public class PersistenceManager {
+
+    private static final byte ANOMALY_ADD = 1;
+    private static final byte ANOMALY_REMOVE = 2;
+    private static final byte ZONE_ADD = 3;
+    private static final byte ZONE_REMOVE = 4;
+    private static final byte RADIATION = 5;
+    private static final byte REACTOR = 6;
+    private static final byte REACTOR_REMOVE = 7;
+
+    private final XFilesPlugin plugin;
+    private final StateJournal journal;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+    private final DataOutputStream data = new DataOutputStream(buffer);
+    private List<byte[]> capture; // не null во время сборки снимка
+    private boolean open;
+
+    public PersistenceManager(XFilesPlugin plugin) {
+        this.plugin = plugin;
+        this.journal = new StateJournal(new File(plugin.getDataFolder(), "data").toPath(), plugin.getLogger());
+    }
+
+    // ---------- Восстановление ----------
+
+    // Читает снимок и журнал и передаёт итоговое состояние менеджерам.
+    // Вызывается в onEnable до регистрации игроков и запуска задач.
+    public void restore() {
+        long started = System.nanoTime();
+        List<byte[]> records;
+        try {
+            records = journal.replay();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Не удалось прочитать сохранённое состояние", e);
+            records = List.of();
+        }
+
+        // Сворачиваем записи в последнее состояние каждого объекта
+        Map<String, byte[]> anomalies = new LinkedHashMap<>();
+        Map<Integer, byte[]> zones = new LinkedHashMap<>();
+        Map<UUID, long[]> radiation = new HashMap<>();
+        Map<Integer, byte[]> reactors = new LinkedHashMap<>();
+
+        for (byte[] record : records) {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+                switch (in.readByte()) {
+                    case ANOMALY_ADD -> anomalies.put(in.readUTF(), record);
+                    case ANOMALY_REMOVE -> anomalies.remove(in.readUTF());
+                    case ZONE_ADD -> zones.put(in.readInt(), record);
+                    case ZONE_REMOVE -> zones.remove(in.readInt());
+                    case RADIATION -> {
+                        UUID id = new UUID(in.readLong(), in.readLong());
+                        int level = in.readInt();
+                        long updatedAt = in.readLong();
+                        if (level > 0) radiation.put(id, new long[] { level, updatedAt });
+                        else radiation.remove(id);
+                    }
+                    case REACTOR -> reactors.put(in.readInt(), record);
+                    case REACTOR_REMOVE -> reactors.remove(in.readInt());
+                    default -> plugin.getLogger().warning("Неизвестная запись журнала, пропущена");
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Повреждённая запись журнала пропущена: " + e.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try {
+            for (byte[] record : anomalies.values()) {
+                if (restoreAnomaly(record, now)) restored++;
+            }
+            for (byte[] record : zones.values()) {
+                if (restoreZone(record, now)) restored++;
+            }
+            for (Map.Entry<UUID, long[]> entry : radiation.entrySet()) {
+                plugin.getRadiationManager().restoreLevel(entry.getKey(), (int) entry.getValue()[0], entry.getValue()[1]);
+                restored++;
+            }
+            for (byte[] record : reactors.values()) {
+                if (restoreReactor(record)) restored++;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Ошибка восстановления состояния", e);
+        }
+
+        open = true;
+        long millis = (System.nanoTime() - started) / 1_000_000L;
+        plugin.getLogger().info("Состояние восстановлено: записей " + records.size()
+            + ", объектов " + restored + " за " + millis + " мс");
+
+        // Начинаем с чистого журнала поверх свежего снимка
+        compact();
+    }
+
+    private boolean restoreAnomaly(byte[] record, long now) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readByte();
+        String id = in.readUTF();
+        String type = in.readUTF();
+        Location location = readLocation(in);
+        int radius = in.readInt();
+        long createdTime = in.readLong();
+        long duration = in.readLong();
+
+        if (location == null || createdTime + duration <= now) return false;
+        return plugin.getAnomalyManager().restoreAnomaly(id, type, location, radius, createdTime, duration);
+    }
+
+    private boolean restoreZone(byte[] record, long now) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readByte();
+        int id = in.readInt();
+        Location location = readLocation(in);
+        int level = in.readInt();
+        int radius = in.readInt();
+        long expiresAt = in.readLong();
+
+        if (location == null || expiresAt <= now) return false;
+        plugin.getRadiationManager().restoreZone(id, location, level, radius, expiresAt);
+        return true;
+    }
+
+    private boolean restoreReactor(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readByte();
+        int id = in.readInt();
+        int temperature = in.readInt();
+        int power = in.readInt();
+        Location location = readLocation(in);
+        UUID owner = new UUID(in.readLong(), in.readLong());
+
+        if (location == null) return false;
+        plugin.getReactorManager().restore(id, temperature, power, location, owner);
+        return true;
+    }
+
+    // ---------- Запись изменений ----------
+
+    public void anomalyCreated(Anomaly anomaly) {
+        if (!begin(ANOMALY_ADD)) return;
+        try {
+            data.writeUTF(anomaly.id);
+            data.writeUTF(anomaly.type.name);
+            writeLocation(anomaly.location);
+            data.writeInt(anomaly.radius);
+            data.writeLong(anomaly.createdTime);
+            data.writeLong(anomaly.duration);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void anomalyRemoved(String id) {
+        if (!begin(ANOMALY_REMOVE)) return;
+        try {
+            data.writeUTF(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void zoneCreated(RadiationZone zone) {
+        if (!begin(ZONE_ADD)) return;
+        try {
+            data.writeInt(zone.id);
+            writeLocation(zone.location);
+            data.writeInt(zone.level);
+            data.writeInt(zone.radius);
+            data.writeLong(zone.expiresAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void zoneRemoved(int id) {
+        if (!begin(ZONE_REMOVE)) return;
+        try {
+            data.writeInt(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void radiationChanged(UUID playerId, int level, long updatedAt) {
+        if (!begin(RADIATION)) return;
+        try {
+            data.writeLong(playerId.getMostSignificantBits());
+            data.writeLong(playerId.getLeastSignificantBits());
+            data.writeInt(level);
+            data.writeLong(updatedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void reactorChanged(int id, int temperature, int power, Location location, UUID owner) {
+        if (!begin(REACTOR)) return;
+        try {
+            data.writeInt(id);
+            data.writeInt(temperature);
+            data.writeInt(power);
+            writeLocation(location);
+            data.writeLong(owner.getMostSignificantBits());
+            data.writeLong(owner.getLeastSignificantBits());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    public void reactorRemoved(int id) {
+        if (!begin(REACTOR_REMOVE)) return;
+        try {
+            data.writeInt(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end();
+    }
+
+    // ---------- Периодические задачи ----------
+
+    // Пачка уровней облучения онлайн-игроков и температур реакторов
+    public void flush() {
+        if (!open) return;
+        plugin.getRadiationManager().persistLevels(this, false);
+        plugin.getReactorManager().persist(this);
+    }
+
+    // Полный снимок состояния; журнал после него начинается заново
+    public void compact() {
+        if (!open) return;
+        capture = new ArrayList<>();
+        try {
+            plugin.getAnomalyManager().persistAll(this);
+            plugin.getRadiationManager().persistZones(this);
+            plugin.getRadiationManager().persistLevels(this, true);
+            plugin.getReactorManager().persist(this);
+            journal.compact(capture);
+        } finally {
+            capture = null;
+        }
+    }
+
+    // Сжимаем журнал, только если в нём что-то появилось
+    public void compactIfDirty() {
+        if (journal.getAppended() > 0) {
+            compact();
+        }
+    }
+
+    // Выключение: финальный снимок, дальнейшие изменения (очистка менеджеров) не пишутся
+    public void shutdown() {
+        if (!open) return;
+        compact();
+        open = false;
+        journal.close();
+    }
+
+    private boolean begin(byte type) {
+        if (!open) return false;
+        buffer.reset();
+        buffer.write(type);
+        return true;
+    }
+
+    private void end() {
+        byte[] record = buffer.toByteArray();
+        if (capture != null) {
+            capture.add(record);
+        } else {
+            journal.append(record);
+        }
+    }
+
+    private void writeLocation(Location location) throws IOException {
+        UUID world = location.getWorld().getUID();
+        data.writeLong(world.getMostSignificantBits());
+        data.writeLong(world.getLeastSignificantBits());
+        data.writeDouble(location.getX());
+        data.writeDouble(location.getY());
+        data.writeDouble(location.getZ());
+    }
+
+    // null, если мир больше не загружен
+    private static Location readLocation(DataInputStream in) throws IOException {
+        UUID worldId = new UUID(in.readLong(), in.readLong());
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+        World world = Bukkit.getWorld(worldId);
+        return world != null ? new Location(world, x, y, z) : null;
+    }
+}
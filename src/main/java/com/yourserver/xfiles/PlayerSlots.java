@@ -0,0 +1,96 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+// Плотная нумерация онлайн-игроков: слот выдаётся при входе и освобождается при выходе.
+// Данные игроков хранятся в параллельных массивах по номеру слота, поэтому горячие пути
+// не упаковывают значения и не хешируют UUID повторно.
+public class PlayerSlots {
+
+    private final Map<UUID, Integer> slots;
+    private Player[] players;
+    private int[] generations;
+    private int[] free;
+    private int freeCount;
+    private int highWater;
+
+    public PlayerSlots() {
+        this.slots = new HashMap<>();
+        this.players = new Player[64];
+        this.generations = new int[64];
+        this.free = new int[64];
+    }
+
+    public int assign(Player player) {
+        Integer existing = slots.get(player.getUniqueId());
+        if (existing != null) {
+            players[existing] = player;
+            return existing;
+        }
+
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = highWater++;
+            if (slot == players.length) {
+                players = Arrays.copyOf(players, slot * 2);
+                generations = Arrays.copyOf(generations, slot * 2);
+            }
+        }
+
+        players[slot] = player;
+        generations[slot]++;
+        slots.put(player.getUniqueId(), slot);
+        return slot;
+    }
+
+    public int release(UUID playerId) {
+        Integer slot = slots.remove(playerId);
+        if (slot == null) return -1;
+
+        players[slot] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+        return slot;
+    }
+
+    public int slotOf(UUID playerId) {
+        Integer slot = slots.get(playerId);
+        return slot == null ? -1 : slot;
+    }
+
+    public int slotOf(Player player) {
+        Integer slot = slots.get(player.getUniqueId());
+        return slot != null ? slot : assign(player);
+    }
+
+    public Player getPlayer(int slot) {
+        return slot < highWater ? players[slot] : null;
+    }
+
+    // Номер «поколения» слота: меняется при каждой повторной выдаче слота другому игроку
+    public int getGeneration(int slot) {
+        return generations[slot];
+    }
+
+    // Верхняя граница выданных слотов: все занятые слоты лежат в [0, getHighWater())
+    public int getHighWater() {
+        return highWater;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public void clear() {
+        slots.clear();
+        Arrays.fill(players, null);
+        freeCount = 0;
+        highWater = 0;
+    }
+}
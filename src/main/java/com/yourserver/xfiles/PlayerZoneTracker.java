@@ -0,0 +1,115 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// Последние известные позиции игроков по слотам (только основной поток).
+// Событие движения учитывается лишь при переходе в другой блок: такой игрок помечается
+// «грязным» и попадает в ближайший снимок конвейера облучения.
+public class PlayerZoneTracker {
+
+    private final PlayerSlots slots;
+    private UUID[] worlds;
+    private int[] blockX;
+    private int[] blockY;
+    private int[] blockZ;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private boolean[] dirty;
+    private int[] dirtySlots;
+    private int dirtyCount;
+
+    public PlayerZoneTracker(PlayerSlots slots) {
+        this.slots = slots;
+        allocate(64);
+    }
+
+    public void handleMove(Player player, Location to) {
+        int slot = slots.slotOf(player);
+        if (slot >= worlds.length) {
+            allocate(Math.max(worlds.length * 2, slot + 1));
+        }
+
+        UUID worldId = to.getWorld().getUID();
+        int bx = to.getBlockX(), by = to.getBlockY(), bz = to.getBlockZ();
+        if (bx == blockX[slot] && by == blockY[slot] && bz == blockZ[slot] && worldId.equals(worlds[slot])) {
+            return; // Поворот головы или движение внутри блока
+        }
+
+        worlds[slot] = worldId;
+        blockX[slot] = bx;
+        blockY[slot] = by;
+        blockZ[slot] = bz;
+        x[slot] = to.getX();
+        y[slot] = to.getY();
+        z[slot] = to.getZ();
+
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+
+    public void forget(int slot) {
+        if (slot < 0 || slot >= worlds.length) return;
+        worlds[slot] = null;
+    }
+
+    // Переносит в снимок игроков, сменивших блок, либо всех известных при all == true
+    public void capture(ExposurePipeline.Snapshot snapshot, boolean all) {
+        if (all) {
+            for (int slot = 0, n = Math.min(slots.getHighWater(), worlds.length); slot < n; slot++) {
+                captureSlot(snapshot, slot);
+                dirty[slot] = false;
+            }
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                int slot = dirtySlots[i];
+                captureSlot(snapshot, slot);
+                dirty[slot] = false;
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    private void captureSlot(ExposurePipeline.Snapshot snapshot, int slot) {
+        Player player = slots.getPlayer(slot);
+        if (player == null || worlds[slot] == null) return;
+        snapshot.add(slot, slots.getGeneration(slot), player, worlds[slot],
+                     x[slot], y[slot], z[slot], blockX[slot], blockZ[slot]);
+    }
+
+    public void clear() {
+        Arrays.fill(worlds, null);
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+    }
+
+    private void allocate(int capacity) {
+        if (worlds == null) {
+            worlds = new UUID[capacity];
+            blockX = new int[capacity];
+            blockY = new int[capacity];
+            blockZ = new int[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+            z = new double[capacity];
+            dirty = new boolean[capacity];
+            dirtySlots = new int[capacity];
+            return;
+        }
+        worlds = Arrays.copyOf(worlds, capacity);
+        blockX = Arrays.copyOf(blockX, capacity);
+        blockY = Arrays.copyOf(blockY, capacity);
+        blockZ = Arrays.copyOf(blockZ, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        dirtySlots = Arrays.copyOf(dirtySlots, capacity);
+    }
+}
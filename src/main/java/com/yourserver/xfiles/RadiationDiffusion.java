@@ -0,0 +1,298 @@
+package com.yourserver.xfiles;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Распространение радиации клеточным автоматом по столбцам блоков: мир -> чанк -> 16x16 ячеек.
+// Каждый шаг ячейка обменивается с четырьмя соседями (диффузия с коэффициентом от spread-speed)
+// и теряет долю на распад; радиационные зоны растра работают как источники - внутри зоны
+// уровень не ниже уровня зоны. После исчезновения зоны радиация расползается и угасает.
+// Буферы двойные: шаг читает current и пишет next, затем они меняются местами. Шаг считает
+// пул потоков, разбивая активные плитки на пачки; основной поток только готовит список
+// плиток (с соседями) и публикует результат. Хранятся лишь плитки с ненулевыми ячейками,
+// поэтому стоимость шага зависит от заражённой площади, а не от размера мира.
+public class RadiationDiffusion {
+
+    private static final int SLICE = 16;           // плиток в задаче пула
+    private static final float ZERO = 0.5f;        // меньшие значения округляются до нуля
+
+    static final class Tile {
+        final int chunkX;
+        final int chunkZ;
+        float[] current = new float[256];
+        float[] next = new float[256];
+        final int[] level = new int[256]; // целые уровни для читателей
+
+        // На время шага (заполняет основной поток)
+        Tile north, south, east, west;
+        int[] source;
+        boolean warm; // alive на начало шага: соседи читают его, а не меняющийся alive
+
+        // Итог шага
+        boolean alive; // есть ненулевые ячейки
+        boolean edge;  // край достаточно горячий, чтобы задеть соседний чанк
+
+        Tile(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    // Неизменяемый набор плиток; уровни в плитках обновляются на месте после каждого шага
+    public static final class View {
+        private final Map<UUID, LongHashMap<Tile>> worlds;
+
+        private View(Map<UUID, LongHashMap<Tile>> worlds) {
+            this.worlds = worlds;
+        }
+
+        public int getLevel(UUID worldId, int blockX, int blockZ) {
+            LongHashMap<Tile> tiles = worlds.get(worldId);
+            if (tiles == null) return 0;
+            Tile tile = tiles.get(RadiationRaster.chunkKey(blockX >> 4, blockZ >> 4));
+            return tile == null ? 0 : tile.level[(blockX & 15) | (blockZ & 15) << 4];
+        }
+
+        // Плитки снимка (только чтение): для карты радиации
+        Map<UUID, LongHashMap<Tile>> worlds() {
+            return worlds;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final Map<UUID, LongHashMap<Tile>> worlds = new HashMap<>();
+    private volatile View view = new View(Map.of());
+
+    // Основной поток
+    private ForkJoinTask<?> pending;
+    private Tile[] batch = new Tile[64];
+    private int batchSize;
+    private long ticks;
+    private long steps;
+    private boolean changed;
+
+    public RadiationDiffusion(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public View snapshot() {
+        return view;
+    }
+
+    public int getLevel(UUID worldId, int blockX, int blockZ) {
+        return view.getLevel(worldId, blockX, blockZ);
+    }
+
+    // Число завершённых шагов: по его изменению читатели узнают, что уровни обновились
+    public long getSteps() {
+        return steps;
+    }
+
+    // Шаг запущен в пуле и ещё не посчитан
+    public boolean isStepping() {
+        return pending != null && !pending.isDone();
+    }
+
+    // Вызывается каждый тик из основного потока; шаг автомата - раз в interval тиков
+    public void tick(RadiationRaster.View sources, long interval, double spreadSpeed, double decay) {
+        if (pending != null) {
+            if (!pending.isDone()) return;
+            pending = null;
+            finish();
+        }
+
+        if (++ticks < interval) return;
+        ticks = 0;
+
+        prepare(sources);
+        if (batchSize == 0) return;
+
+        float k = (float) Math.min(0.25, 0.05 * spreadSpeed);
+        float keep = (float) (1.0 - decay);
+        Tile[] tiles = batch;
+        int size = batchSize;
+        pending = pool.submit(() -> step(tiles, size, k, keep));
+    }
+
+    public void clear() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        worlds.clear();
+        batchSize = 0;
+        view = new View(Map.of());
+    }
+
+    // ---------- Основной поток: подготовка и публикация ----------
+
+    private void prepare(RadiationRaster.View sources) {
+        // Плитки под источниками
+        for (Map.Entry<UUID, LongHashMap<RadiationRaster.Tile>> entry : sources.worlds().entrySet()) {
+            LongHashMap<RadiationRaster.Tile> rasterTiles = entry.getValue();
+            LongHashMap<Tile> tiles = worlds.computeIfAbsent(entry.getKey(), id -> new LongHashMap<>());
+            for (int i = 0; i < rasterTiles.capacity(); i++) {
+                if (rasterTiles.valueAt(i) == null) continue;
+                long key = rasterTiles.keyAt(i);
+                if (tiles.get(key) == null) {
+                    tiles.put(key, new Tile((int) (key >> 32), (int) key));
+                    changed = true;
+                }
+            }
+        }
+
+        batchSize = 0;
+        List<Tile> edges = new ArrayList<>();
+        for (Map.Entry<UUID, LongHashMap<Tile>> entry : worlds.entrySet()) {
+            LongHashMap<Tile> tiles = entry.getValue();
+            LongHashMap<RadiationRaster.Tile> rasterTiles = sources.worlds().get(entry.getKey());
+
+            // Соседи горячего края появляются до шага, чтобы радиации было куда течь
+            // (сначала собираем края: вставка во время обхода может перестроить таблицу)
+            edges.clear();
+            for (int i = 0; i < tiles.capacity(); i++) {
+                Tile tile = tiles.valueAt(i);
+                if (tile != null && tile.edge) edges.add(tile);
+            }
+            for (Tile tile : edges) {
+                changed |= addNeighbour(tiles, tile.chunkX, tile.chunkZ - 1);
+                changed |= addNeighbour(tiles, tile.chunkX, tile.chunkZ + 1);
+                changed |= addNeighbour(tiles, tile.chunkX + 1, tile.chunkZ);
+                changed |= addNeighbour(tiles, tile.chunkX - 1, tile.chunkZ);
+            }
+
+            for (int i = 0; i < tiles.capacity(); i++) {
+                Tile tile = tiles.valueAt(i);
+                if (tile == null) continue;
+                tile.north = tiles.get(RadiationRaster.chunkKey(tile.chunkX, tile.chunkZ - 1));
+                tile.south = tiles.get(RadiationRaster.chunkKey(tile.chunkX, tile.chunkZ + 1));
+                tile.east = tiles.get(RadiationRaster.chunkKey(tile.chunkX + 1, tile.chunkZ));
+                tile.west = tiles.get(RadiationRaster.chunkKey(tile.chunkX - 1, tile.chunkZ));
+                RadiationRaster.Tile source = rasterTiles != null
+                    ? rasterTiles.get(RadiationRaster.chunkKey(tile.chunkX, tile.chunkZ)) : null;
+                tile.source = source != null ? source.level : null;
+
+                if (batchSize == batch.length) batch = Arrays.copyOf(batch, batchSize * 2);
+                batch[batchSize++] = tile;
+            }
+        }
+        for (int i = 0; i < batchSize; i++) {
+            batch[i].warm = batch[i].alive;
+        }
+    }
+
+    private static boolean addNeighbour(LongHashMap<Tile> tiles, int chunkX, int chunkZ) {
+        long key = RadiationRaster.chunkKey(chunkX, chunkZ);
+        if (tiles.get(key) != null) return false;
+        tiles.put(key, new Tile(chunkX, chunkZ));
+        return true;
+    }
+
+    // Остывшие плитки без источников удаляются, набор плиток публикуется заново при изменениях
+    private void finish() {
+        for (Iterator<Map.Entry<UUID, LongHashMap<Tile>>> it = worlds.entrySet().iterator(); it.hasNext(); ) {
+            LongHashMap<Tile> tiles = it.next().getValue();
+            List<Long> cold = new ArrayList<>();
+            for (int i = 0; i < tiles.capacity(); i++) {
+                Tile tile = tiles.valueAt(i);
+                if (tile == null) continue;
+                tile.north = tile.south = tile.east = tile.west = null;
+                if (!tile.alive && tile.source == null) cold.add(tiles.keyAt(i));
+                tile.source = null;
+            }
+            for (long key : cold) {
+                tiles.remove(key);
+                changed = true;
+            }
+            if (tiles.isEmpty()) it.remove();
+        }
+        Arrays.fill(batch, 0, batchSize, null);
+        batchSize = 0;
+        steps++;
+
+        if (changed) {
+            Map<UUID, LongHashMap<Tile>> copy = new HashMap<>();
+            for (Map.Entry<UUID, LongHashMap<Tile>> entry : worlds.entrySet()) {
+                copy.put(entry.getKey(), new LongHashMap<>(entry.getValue()));
+            }
+            view = new View(copy);
+            changed = false;
+        }
+    }
+
+    // ---------- Пул потоков: шаг автомата ----------
+
+    private static void step(Tile[] tiles, int size, float k, float keep) {
+        int parts = (size + SLICE - 1) / SLICE;
+        List<RecursiveAction> tasks = new ArrayList<>(parts);
+        for (int p = 0; p < parts; p++) {
+            int from = p * SLICE;
+            int to = Math.min(size, from + SLICE);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for (int i = from; i < to; i++) diffuse(tiles[i], k, keep);
+                }
+            });
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        // Все плитки посчитаны по старым буферам - теперь меняем их местами
+        for (int i = 0; i < size; i++) {
+            Tile tile = tiles[i];
+            float[] swap = tile.current;
+            tile.current = tile.next;
+            tile.next = swap;
+        }
+    }
+
+    private static void diffuse(Tile tile, float k, float keep) {
+        // Холодная плитка среди холодных соседей без источника остаётся нулевой
+        if (!tile.warm && tile.source == null && cold(tile.north) && cold(tile.south)
+            && cold(tile.east) && cold(tile.west)) {
+            Arrays.fill(tile.next, 0.0f);
+            return;
+        }
+
+        float[] c = tile.current;
+        float[] n = tile.next;
+        float[] north = tile.north != null ? tile.north.current : null;
+        float[] south = tile.south != null ? tile.south.current : null;
+        float[] east = tile.east != null ? tile.east.current : null;
+        float[] west = tile.west != null ? tile.west.current : null;
+        int[] source = tile.source;
+        float edgeThreshold = k > 0.0f ? ZERO / k : Float.MAX_VALUE;
+        boolean alive = false;
+        boolean edge = false;
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int i = x | z << 4;
+                float self = c[i];
+                float up = z > 0 ? c[i - 16] : north != null ? north[i + 240] : 0.0f;
+                float down = z < 15 ? c[i + 16] : south != null ? south[i - 240] : 0.0f;
+                float right = x < 15 ? c[i + 1] : east != null ? east[i - 15] : 0.0f;
+                float left = x > 0 ? c[i - 1] : west != null ? west[i + 15] : 0.0f;
+
+                float value = (self + k * (up + down + right + left - 4.0f * self)) * keep;
+                if (source != null && source[i] > value) value = source[i];
+                if (value < ZERO) value = 0.0f;
+
+                n[i] = value;
+                tile.level[i] = Math.round(value);
+                if (value > 0.0f) {
+                    alive = true;
+                    if ((x == 0 || x == 15 || z == 0 || z == 15) && value >= edgeThreshold) edge = true;
+                }
+            }
+        }
+        tile.alive = alive;
+        tile.edge = edge;
+    }
+
+    private static boolean cold(Tile tile) {
+        return tile == null || !tile.warm;
+    }
+}
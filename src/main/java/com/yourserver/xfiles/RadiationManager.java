@@ -2,139 +2,363 @@ package com.yourserver.xfiles;
 
 import org.bukkit.*;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.File;
 import java.util.*;
 
 public class RadiationManager {
     
     private final XFilesPlugin plugin;
     private final ConfigManager config;
-    private final Map<UUID, Integer> playerRadiation;
-    private final Map<Location, Integer> radiationZones;
-    private final Random random;
+    private final PlayerSlots slots;
+    private final RadiationStore playerRadiation;
+    private final Map<UUID, ParkedLevel> parkedRadiation;
+    private final Map<Integer, RadiationZone> radiationZones;
+    private final RadiationRaster raster;
+    private final RadiationDiffusion diffusion;
+    private final ContaminationStore contamination;
+    private final RadiationMap map;
+    private final GeigerHud hud;
+    private final ExpiryWheel expiryWheel;
+    private int nextZoneId = 1;
+    private long diffusionSteps;
     
     public RadiationManager(XFilesPlugin plugin) {
         this.plugin = plugin;
         this.config = plugin.getConfigManager();
-        this.playerRadiation = new HashMap<>();
+        this.slots = plugin.getPlayerSlots();
+        this.playerRadiation = new RadiationStore();
+        reloadSettings();
+        this.parkedRadiation = new HashMap<>();
         this.radiationZones = new HashMap<>();
-        this.random = new Random();
+        this.raster = new RadiationRaster();
+        this.diffusion = new RadiationDiffusion(plugin.getComputePool());
+        this.contamination = new ContaminationStore(
+            new File(plugin.getDataFolder(), "contamination").toPath(), plugin.getLogger());
+        this.map = new RadiationMap(plugin, raster, diffusion, contamination);
+        contamination.setWriteListener(map::invalidate);
+        this.hud = new GeigerHud(plugin, slots, playerRadiation, this);
+        this.expiryWheel = plugin.getExpiryWheel();
+    }
+    
+    public static class RadiationZone {
+        public int id;
+        public Location location;
+        public int level;
+        public int radius;
+        public long expiresAt;
+        public ExpiryWheel.Timeout expiry;
+        
+        public RadiationZone(int id, Location location, int level, int radius) {
+            this.id = id;
+            this.location = location;
+            this.level = level;
+            this.radius = radius;
+        }
+    }
+    
+    // Уровень вышедшего игрока вместе с моментом последнего обновления: распад продолжается
+    private static class ParkedLevel {
+        final int level;
+        final long updatedAt;
+        
+        ParkedLevel(int level, long updatedAt) {
+            this.level = level;
+            this.updatedAt = updatedAt;
+        }
+    }
+    
+    // Применение настроек после загрузки или перезагрузки конфигурации
+    public void reloadSettings() {
+        XFilesSettings settings = config.getSettings();
+        playerRadiation.configureDecay(settings.radiationDecayRate, settings.radiationHalfLife);
     }
     
     public void exposeToRadiation(Player player, int amount) {
-        UUID playerId = player.getUniqueId();
-        int current = playerRadiation.getOrDefault(playerId, 0);
-        int newLevel = Math.min(current + amount, config.getMaxRadiationLevel());
-        playerRadiation.put(playerId, newLevel);
+        int slot = slots.slotOf(player);
+        int newLevel = playerRadiation.add(slot, amount, config.getMaxRadiationLevel(), System.currentTimeMillis());
         
         // Визуальные эффекты
         if (newLevel > 0) {
-            player.getWorld().spawnParticle(Particle.ASH, player.getLocation(), 10, 1, 1, 1);
+            plugin.getEffectEmitter().particle(player.getLocation(), Particle.ASH, 10, 1, true);
         }
     }
     
     public void reduceRadiation(Player player, int amount) {
-        UUID playerId = player.getUniqueId();
-        int current = playerRadiation.getOrDefault(playerId, 0);
-        int newLevel = Math.max(current - amount, 0);
-        playerRadiation.put(playerId, newLevel);
+        reduceRadiation(slots.slotOf(player), amount);
+    }
+    
+    private void reduceRadiation(int slot, int amount) {
+        playerRadiation.add(slot, -amount, config.getMaxRadiationLevel(), System.currentTimeMillis());
+    }
+    
+    public int getRadiationLevel(Player player) {
+        return playerRadiation.getLevel(slots.slotOf(player), System.currentTimeMillis());
+    }
+    
+    // Вход игрока: восстанавливаем уровень, накопленный до выхода
+    public void handleJoin(Player player) {
+        int slot = slots.assign(player);
+        ParkedLevel parked = parkedRadiation.remove(player.getUniqueId());
+        if (parked != null) {
+            playerRadiation.restore(slot, parked.level, parked.updatedAt);
+        } else {
+            playerRadiation.reset(slot);
+        }
+    }
+    
+    // Выход игрока: слот освобождается, ненулевой уровень откладывается до возвращения
+    public void handleQuit(Player player) {
+        int slot = slots.slotOf(player.getUniqueId());
+        if (slot < 0) return;
+        
+        long now = System.currentTimeMillis();
+        if (playerRadiation.settle(slot, now)) {
+            ParkedLevel parked = new ParkedLevel(playerRadiation.getLevel(slot, now), playerRadiation.getUpdatedAt(slot));
+            parkedRadiation.put(player.getUniqueId(), parked);
+            plugin.getPersistence().radiationChanged(player.getUniqueId(), parked.level, parked.updatedAt);
+        }
+        playerRadiation.reset(slot);
+        hud.forget(slot);
+        slots.release(player.getUniqueId());
+    }
+    
+    // Уровень игрока из сохранённого состояния: до входа хранится как отложенный
+    public void restoreLevel(UUID playerId, int level, long updatedAt) {
+        parkedRadiation.put(playerId, new ParkedLevel(level, updatedAt));
+    }
+    
+    public void restoreZone(int id, Location location, int level, int radius, long expiresAt) {
+        if (radiationZones.containsKey(id)) return;
+        
+        RadiationZone zone = new RadiationZone(id, location, level, radius);
+        zone.expiresAt = expiresAt;
+        radiationZones.put(id, zone);
+        raster.addZone(location.getWorld().getUID(), location.getX(), location.getZ(), radius, level);
+        map.invalidate(location.getWorld().getUID(), location.getX(), location.getZ(), radius);
+        zone.expiry = expiryWheel.schedule((expiresAt - System.currentTimeMillis()) / 50L, () -> removeRadiationZone(id));
+        nextZoneId = Math.max(nextZoneId, id + 1);
+    }
+    
+    public void persistZones(PersistenceManager persistence) {
+        for (RadiationZone zone : radiationZones.values()) {
+            persistence.zoneCreated(zone);
+        }
+    }
+    
+    public void recordZones(MovementRecorder recorder) {
+        for (RadiationZone zone : radiationZones.values()) {
+            recorder.zoneCreated(zone);
+        }
     }
     
-    public void checkRadiationExposure(Player player, Location location) {
-        // Проверка радиационных зон
-        for (Map.Entry<Location, Integer> entry : radiationZones.entrySet()) {
-            if (location.distance(entry.getKey()) <= config.getContaminationRadius()) {
-                exposeToRadiation(player, 1);
+    // Уровни облучённых онлайн-игроков (и отложенные уровни вышедших для снимка)
+    public void persistLevels(PersistenceManager persistence, boolean includeParked) {
+        long now = System.currentTimeMillis();
+        for (int i = playerRadiation.getActiveCount() - 1; i >= 0; i--) {
+            int slot = playerRadiation.getActiveSlot(i);
+            Player player = slots.getPlayer(slot);
+            if (player == null || !playerRadiation.settle(slot, now)) continue;
+            persistence.radiationChanged(player.getUniqueId(), playerRadiation.getLevel(slot, now),
+                                         playerRadiation.getUpdatedAt(slot));
+        }
+        
+        if (includeParked) {
+            for (Map.Entry<UUID, ParkedLevel> entry : parkedRadiation.entrySet()) {
+                persistence.radiationChanged(entry.getKey(), entry.getValue().level, entry.getValue().updatedAt);
             }
         }
     }
     
+    public int getZoneCount() {
+        return radiationZones.size();
+    }
+    
+    public RadiationRaster getRaster() {
+        return raster;
+    }
+    
+    public RadiationDiffusion getDiffusion() {
+        return diffusion;
+    }
+    
+    public RadiationMap getMap() {
+        return map;
+    }
+    
+    // Счётчик Гейгера игроков, раз в тик
+    public void tickHud() {
+        hud.tick();
+    }
+    
+    public void tickDiffusion() {
+        XFilesSettings settings = config.getSettings();
+        diffusion.tick(raster.snapshot(), settings.radiationDiffusionInterval,
+                       settings.radiationSpreadSpeed, settings.radiationDiffusionDecay);
+        // Завершённый шаг распространения меняет уровни на картах
+        if (diffusion.getSteps() != diffusionSteps) {
+            diffusionSteps = diffusion.getSteps();
+            map.invalidateDiffusion(diffusion.snapshot());
+        }
+    }
+    
+    public ContaminationStore getContamination() {
+        return contamination;
+    }
+    
+    // Долговременное заражение местности (например, после расплавления реактора)
+    public void contaminate(Location center, int radius, int level) {
+        contamination.contaminate(center.getWorld().getUID(), center.getX(), center.getZ(), radius, level);
+    }
+    
+    // Подгрузка регионов заражения рядом с игроками и выгрузка давно не показанных плиток карт
+    public void pageContamination() {
+        map.evict();
+        XFilesSettings settings = config.getSettings();
+        contamination.page(Bukkit.getOnlinePlayers(), settings.contaminationPageMargin,
+                           settings.contaminationUnloadAfter * 50L);
+    }
+    
     public void updateRadiationEffects() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            int level = playerRadiation.getOrDefault(player.getUniqueId(), 0);
+        FlightEvents.RadiationUpdate event = new FlightEvents.RadiationUpdate();
+        event.begin();
+        long now = System.currentTimeMillis();
+        int irradiated = playerRadiation.getActiveCount();
+        int affected = 0;
+        
+        // Обходим только облучённых игроков; распад уже учтён при чтении,
+        // слоты, чей уровень упал до нуля, покидают активное множество в settle
+        for (int i = playerRadiation.getActiveCount() - 1; i >= 0; i--) {
+            int slot = playerRadiation.getActiveSlot(i);
+            if (!playerRadiation.settle(slot, now)) continue;
             
-            if (level > 0) {
-                applyRadiationEffects(player, level);
-                showRadiationWarning(player, level);
-                
-                // Постепенное уменьшение радиации
-                if (random.nextInt(100) < 10) { // 10% шанс уменьшения
-                    reduceRadiation(player, 1);
-                }
-            }
+            Player player = slots.getPlayer(slot);
+            if (player == null) continue;
+            
+            int level = playerRadiation.getLevel(slot, now);
+            applyRadiationEffects(player, level);
+            affected++;
+        }
+        plugin.getMetrics().count(Metrics.EFFECTS_APPLIED, affected);
+        
+        // Отложенные уровни вышедших игроков, полностью распавшиеся за время отсутствия
+        if (!parkedRadiation.isEmpty()) {
+            parkedRadiation.values().removeIf(parked ->
+                playerRadiation.decay(parked.level, now - parked.updatedAt) == 0);
+        }
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.irradiated = irradiated;
+            event.affected = affected;
+            event.zoneCount = radiationZones.size();
+            event.commit();
         }
     }
     
     private void applyRadiationEffects(Player player, int level) {
-        List<String> effects = config.getRadiationEffects();
-        
-        for (String effectName : effects) {
-            PotionEffectType effectType = PotionEffectType.getByName(effectName);
-            if (effectType != null) {
-                int amplifier = level / 25; // Усиление эффекта с уровнем радиации
-                player.addPotionEffect(new PotionEffect(effectType, 100, amplifier));
-            }
+        // Эффекты заранее разобраны в снимке настроек и сгруппированы по усилению (level / 25)
+        XFilesSettings settings = config.getSettings();
+        for (PotionEffect effect : settings.getRadiationEffects(level)) {
+            player.addPotionEffect(effect);
         }
         
         // Дополнительные эффекты при высоком уровне
         if (level > 75) {
-            player.addPotionEffect(new PotionEffect(PotionEffectType.WITHER, 100, 1));
+            player.addPotionEffect(settings.radiationWither);
         }
         if (level > 90) {
-            player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 100, 0));
+            player.addPotionEffect(settings.radiationBlindness);
         }
     }
     
+    // Показания в чат по /radiation check; постоянные показания - на полосе счётчика (GeigerHud)
     private void showRadiationWarning(Player player, int level) {
-        String message;
+        Messages.Key key;
         if (level < 25) {
-            message = config.getMessage("radiation.normal");
+            key = Messages.RADIATION_NORMAL;
         } else if (level < 50) {
-            message = config.getMessage("radiation.low");
+            key = Messages.RADIATION_LOW;
         } else if (level < 75) {
-            message = config.getMessage("radiation.medium");
+            key = Messages.RADIATION_MEDIUM;
         } else if (level < 90) {
-            message = config.getMessage("radiation.high");
+            key = Messages.RADIATION_HIGH;
         } else {
-            message = config.getMessage("radiation.deadly");
+            key = Messages.RADIATION_DEADLY;
         }
+        player.sendMessage(config.getTemplate(key).render(level));
+        plugin.getMetrics().count(Metrics.MESSAGES_SENT, 1);
+    }
+    
+    public void createRadiationZone(Location location, int level) {
+        FlightEvents.ZoneCreate event = new FlightEvents.ZoneCreate();
+        event.begin();
+        // Каждая зона получает свой идентификатор: зоны в одной точке суммируются, а не затирают друг друга
+        RadiationZone zone = new RadiationZone(nextZoneId++, location.clone(), level, config.getContaminationRadius());
+        radiationZones.put(zone.id, zone);
+        raster.addZone(location.getWorld().getUID(), location.getX(), location.getZ(), zone.radius, zone.level);
+        map.invalidate(location.getWorld().getUID(), location.getX(), location.getZ(), zone.radius);
         
-        message = message.replace("{level}", String.valueOf(level));
-        
-        // Показываем предупреждение только иногда, чтобы не спамить
-        if (random.nextInt(100) < 20) { // 20% шанс показать сообщение
-            player.sendMessage(message);
-        }
+        // Автоматическое удаление через 10 минут
+        zone.expiry = expiryWheel.schedule(12000L, () -> removeRadiationZone(zone.id));
+        zone.expiresAt = System.currentTimeMillis() + 12000L * 50L;
+        plugin.getPersistence().zoneCreated(zone);
+        plugin.getMovementRecorder().zoneCreated(zone);
         
-        // Звуковое предупреждение при высоком уровне
-        if (level > 75 && random.nextInt(100) < 10) {
-            player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BIT, 1.0f, 0.5f);
+        event.end();
+        if (event.shouldCommit()) {
+            event.zoneId = zone.id;
+            event.level = zone.level;
+            event.blockRadius = zone.radius;
+            event.zoneCount = radiationZones.size();
+            event.commit();
         }
     }
     
-    public void createRadiationZone(Location location, int level) {
-        radiationZones.put(location, level);
+    public boolean removeRadiationZone(int id) {
+        RadiationZone zone = radiationZones.remove(id);
+        if (zone == null) return false;
         
-        // Автоматическое удаление через 10 минут
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                radiationZones.remove(location);
-            }
-        }.runTaskLater(plugin, 12000L);
+        FlightEvents.ZoneExpire event = new FlightEvents.ZoneExpire();
+        event.begin();
+        expiryWheel.cancel(zone.expiry);
+        plugin.getPersistence().zoneRemoved(id);
+        plugin.getMovementRecorder().zoneRemoved(id);
+        Location loc = zone.location;
+        raster.removeZone(loc.getWorld().getUID(), loc.getX(), loc.getZ(), zone.radius, zone.level);
+        map.invalidate(loc.getWorld().getUID(), loc.getX(), loc.getZ(), zone.radius);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.zoneId = id;
+            event.level = zone.level;
+            event.blockRadius = zone.radius;
+            event.zoneCount = radiationZones.size();
+            event.commit();
+        }
+        return true;
     }
     
     public void cleanup() {
+        for (RadiationZone zone : radiationZones.values()) {
+            expiryWheel.cancel(zone.expiry);
+        }
         playerRadiation.clear();
+        parkedRadiation.clear();
         radiationZones.clear();
+        raster.clear();
+        diffusion.clear();
+        map.clear();
+        hud.clear();
+        contamination.close();
     }
     
     public boolean handleCommand(Player player, String[] args) {
         if (args.length == 0) {
-            player.sendMessage(ChatColor.RED + "Используйте: /radiation <check|cleanup|map>");
+            player.sendMessage(ChatColor.RED + "Используйте: /radiation <check|cleanup|map|decontaminate>");
             return true;
         }
         
@@ -145,6 +369,8 @@ public class RadiationManager {
                 return handleCleanup(player);
             case "map":
                 return handleMap(player);
+            case "decontaminate":
+                return handleDecontaminate(player, args);
             default:
                 player.sendMessage(ChatColor.RED + "Неизвестная подкоманда");
         }
@@ -153,66 +379,74 @@ public class RadiationManager {
     }
     
     private boolean handleCheck(Player player) {
-        int level = playerRadiation.getOrDefault(player.getUniqueId(), 0);
+        int level = getRadiationLevel(player);
         showRadiationWarning(player, level);
         return true;
     }
     
     private boolean handleCleanup(Player player) {
-        playerRadiation.put(player.getUniqueId(), 0);
+        long now = System.currentTimeMillis();
+        playerRadiation.setLevel(slots.slotOf(player), 0, now);
+        plugin.getPersistence().radiationChanged(player.getUniqueId(), 0, now);
         player.removePotionEffect(PotionEffectType.POISON);
         player.removePotionEffect(PotionEffectType.NAUSEA);
         player.removePotionEffect(PotionEffectType.WITHER);
         player.removePotionEffect(PotionEffectType.BLINDNESS);
         
         player.sendMessage(config.getMessage("radiation.decontaminated"));
-        player.getWorld().spawnParticle(Particle.HEART, player.getLocation(), 10);
-        player.playSound(player.getLocation(), Sound.BLOCK_LAVA_EXTINGUISH, 1.0f, 1.0f);
+        plugin.getEffectEmitter().particle(player.getLocation(), Particle.HEART, 10, 0, true);
+        plugin.getEffectEmitter().sound(player, Sound.BLOCK_LAVA_EXTINGUISH, 1.0f, 1.0f, false);
         
         return true;
     }
     
-    private boolean handleMap(Player player) {
-        int radius = 30;
-        Location center = player.getLocation();
-        
-        player.sendMessage(config.getMessage("radiation.map").replace("{radius}", String.valueOf(radius)));
-        
-        for (int x = -radius; x <= radius; x += 10) {
-            for (int z = -radius; z <= radius; z += 10) {
-                Location checkLoc = center.clone().add(x, 0, z);
-                int radiationLevel = getRadiationLevelAt(checkLoc);
-                
-                if (radiationLevel > 0) {
-                    ChatColor color = getRadiationColor(radiationLevel);
-                    player.sendMessage(color + "☢ " + radiationLevel + " мкЗв " + 
-                                     ChatColor.WHITE + "в " + 
-                                     checkLoc.getBlockX() + ", " + checkLoc.getBlockZ());
-                }
+    private boolean handleDecontaminate(Player player, String[] args) {
+        if (!player.hasPermission("xfiles.admin")) {
+            player.sendMessage(config.getMessage("main.no-permission"));
+            return true;
+        }
+        
+        int radius = 16;
+        if (args.length > 1) {
+            try {
+                radius = Math.max(1, Math.min(256, Integer.parseInt(args[1])));
+            } catch (NumberFormatException e) {
+                player.sendMessage(ChatColor.RED + "Используйте: /radiation decontaminate [радиус]");
+                return true;
             }
         }
         
+        Location loc = player.getLocation();
+        contamination.decontaminate(loc.getWorld().getUID(), loc.getX(), loc.getZ(), radius);
+        player.sendMessage(config.getMessage("radiation.decontaminated"));
         return true;
     }
     
-    private int getRadiationLevelAt(Location location) {
-        int totalRadiation = 0;
-        
-        for (Map.Entry<Location, Integer> entry : radiationZones.entrySet()) {
-            double distance = location.distance(entry.getKey());
-            if (distance <= config.getContaminationRadius()) {
-                totalRadiation += entry.getValue();
-            }
+    private boolean handleMap(Player player) {
+        if (!player.hasPermission("xfiles.radiation.map")) {
+            player.sendMessage(config.getMessage("main.no-permission"));
+            return true;
+        }
+        long cooldown = map.getCooldown(player);
+        if (cooldown > 0) {
+            player.sendMessage(config.getTemplate(Messages.RADIATION_MAP_COOLDOWN).render(cooldown));
+            return true;
         }
         
-        return Math.min(totalRadiation, config.getMaxRadiationLevel());
+        ItemStack item = map.createMap(player);
+        for (ItemStack left : player.getInventory().addItem(item).values()) {
+            player.getWorld().dropItemNaturally(player.getLocation(), left);
+        }
+        player.sendMessage(config.getTemplate(Messages.RADIATION_MAP).render(map.getReach()));
+        return true;
     }
     
-    private ChatColor getRadiationColor(int level) {
-        if (level < 25) return ChatColor.GREEN;
-        if (level < 50) return ChatColor.YELLOW;
-        if (level < 75) return ChatColor.GOLD;
-        if (level < 90) return ChatColor.RED;
-        return ChatColor.DARK_RED;
+    public int getRadiationLevelAt(Location location) {
+        UUID worldId = location.getWorld().getUID();
+        // Внутри зон поле распространения не ниже уровня зон, вне их - остаток разошедшейся радиации
+        int field = Math.max(raster.getLevel(worldId, location.getBlockX(), location.getBlockZ()),
+                             diffusion.getLevel(worldId, location.getBlockX(), location.getBlockZ()));
+        int totalRadiation = field + contamination.getLevel(worldId, location.getBlockX(), location.getBlockZ());
+        return Math.min(totalRadiation, config.getMaxRadiationLevel());
     }
 }
@@ -0,0 +1,373 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.MapMeta;
+import org.bukkit.map.MapCanvas;
+import org.bukkit.map.MapPalette;
+import org.bukkit.map.MapRenderer;
+import org.bukkit.map.MapView;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+// Карта радиации (/radiation map): поверх местности на предмете-карте рисуются зоны,
+// разошедшаяся радиация и заражение. Изображение собирается из плиток 16x16 пикселей,
+// общих для всех карт одного масштаба. Плитки растрируются в пуле потоков по снимкам
+// растра, распространения и заражения и хранятся, пока не изменится накрывающая их зона.
+// Рендерер карты не контекстный: за тик он перерисовывает только плитки с новой версией
+// один раз на всех игроков, а сервер досылает игрокам лишь изменившиеся пиксели.
+// На каждую клетку сетки ванильных карт (мир, масштаб, клетка) заводится одна карта:
+// повторные выдачи в той же клетке возвращают предмет для уже созданной карты, поэтому
+// новые номера карт и файлы data/map_N.dat появляются только в новых клетках.
+public class RadiationMap {
+
+    private static final int TILE = 16;              // пикселей в стороне плитки
+    private static final int SLOTS = 128 / TILE;     // плиток в стороне карты
+    private static final byte NONE = -1;             // пиксель не закрашен: видна местность
+    private static final int RESCAN_TICKS = 10;      // проверка устаревших плиток без новых готовых
+    private static final long EVICT_AFTER = 6000L;   // тиков без показа до выгрузки плитки
+
+    // Цвета уровней: <25, <50, <75, <90, выше
+    @SuppressWarnings("deprecation")
+    private static final byte[] COLORS = {
+        MapPalette.matchColor(new Color(0x55FF55)),
+        MapPalette.matchColor(new Color(0xFFFF55)),
+        MapPalette.matchColor(new Color(0xFFAA00)),
+        MapPalette.matchColor(new Color(0xFF5555)),
+        MapPalette.matchColor(new Color(0xAA0000))
+    };
+
+    // Плитка: пиксели квадрата (16 << scale) блоков
+    static final class Tile {
+        volatile byte[] pixels;                  // null - ещё не растрирована
+        volatile int version;
+        volatile boolean stale = true;
+        volatile int usedAt;                     // тик последнего показа
+        final AtomicBoolean queued = new AtomicBoolean();
+    }
+
+    private final XFilesPlugin plugin;
+    private final ConfigManager config;
+    private final RadiationRaster raster;
+    private final RadiationDiffusion diffusion;
+    private final ContaminationStore contamination;
+    private final Map<UUID, Map<Long, Tile>> tiles = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(); // растёт с каждой готовой плиткой
+    private final Map<String, Integer> cells = new HashMap<>(); // клетка сетки -> номер карты
+    private final Set<Integer> mapIds = new HashSet<>();
+    private final Map<UUID, Long> issuedAt = new HashMap<>();   // последняя выдача игроку
+    private final File idsFile;
+
+    public RadiationMap(XFilesPlugin plugin, RadiationRaster raster, RadiationDiffusion diffusion,
+                        ContaminationStore contamination) {
+        this.plugin = plugin;
+        this.config = plugin.getConfigManager();
+        this.raster = raster;
+        this.diffusion = diffusion;
+        this.contamination = contamination;
+        this.idsFile = new File(plugin.getDataFolder(), "radiation-maps.txt");
+        loadIds();
+    }
+
+    // Секунд до следующей выдачи игроку (0 - можно выдавать)
+    public long getCooldown(Player player) {
+        Long last = issuedAt.get(player.getUniqueId());
+        if (last == null) return 0L;
+        long left = last + config.getSettings().radiationMapCooldown * 1000L - System.currentTimeMillis();
+        return left > 0 ? (left + 999) / 1000 : 0L;
+    }
+
+    // Предмет-карта клетки сетки ванильных карт, в которой стоит игрок; карта клетки
+    // создаётся при первой выдаче и дальше переиспользуется
+    @SuppressWarnings("deprecation")
+    public ItemStack createMap(Player player) {
+        Location at = player.getLocation();
+        World world = at.getWorld();
+        int scale = config.getSettings().radiationMapScale;
+        int size = 128 << scale;
+        int cellX = Math.floorDiv(at.getBlockX() + 64, size);
+        int cellZ = Math.floorDiv(at.getBlockZ() + 64, size);
+        String cell = cellKey(world.getUID(), scale, cellX, cellZ);
+
+        Integer known = cells.get(cell);
+        MapView view = known != null ? Bukkit.getMap(known) : null;
+        if (view == null || view.getWorld() != world) {
+            view = Bukkit.createMap(world);
+            view.setScale(MapView.Scale.values()[scale]);
+            view.setCenterX(cellX * size + size / 2 - 64);
+            view.setCenterZ(cellZ * size + size / 2 - 64);
+            view.setTrackingPosition(true);
+            view.setUnlimitedTracking(false);
+            if (known != null) mapIds.remove(known);
+            cells.put(cell, view.getId());
+            mapIds.add(view.getId());
+            saveIds();
+        }
+        install(view);
+        issuedAt.put(player.getUniqueId(), System.currentTimeMillis());
+
+        ItemStack item = new ItemStack(Material.FILLED_MAP);
+        MapMeta meta = (MapMeta) item.getItemMeta();
+        meta.setMapView(view);
+        meta.setDisplayName(config.getMessage("radiation.map-item"));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    // Сколько блоков от центра до края карты
+    public int getReach() {
+        return 64 << config.getSettings().radiationMapScale;
+    }
+
+    // Карта загружена сервером (в том числе после перезапуска): возвращаем рендерер
+    public void attach(MapView view) {
+        if (mapIds.contains(view.getId())) {
+            install(view);
+        }
+    }
+
+    // Изменилась радиация в круге; вызывается из любого потока
+    public void invalidate(UUID worldId, double x, double z, int radius) {
+        Map<Long, Tile> cached = tiles.get(worldId);
+        if (cached == null || cached.isEmpty()) return;
+        invalidate(cached, (int) Math.floor(x - radius), (int) Math.floor(z - radius),
+                   (int) Math.floor(x + radius), (int) Math.floor(z + radius));
+    }
+
+    // Шаг распространения изменил уровни во всех живых чанках поля (основной поток)
+    public void invalidateDiffusion(RadiationDiffusion.View field) {
+        if (tiles.isEmpty()) return;
+        for (Map.Entry<UUID, LongHashMap<RadiationDiffusion.Tile>> entry : field.worlds().entrySet()) {
+            Map<Long, Tile> cached = tiles.get(entry.getKey());
+            if (cached == null || cached.isEmpty()) continue;
+            LongHashMap<RadiationDiffusion.Tile> chunks = entry.getValue();
+            for (int i = 0; i < chunks.capacity(); i++) {
+                RadiationDiffusion.Tile chunk = chunks.valueAt(i);
+                if (chunk == null || !chunk.alive) continue;
+                int x = chunk.chunkX << 4, z = chunk.chunkZ << 4;
+                invalidate(cached, x, z, x + 15, z + 15);
+            }
+        }
+    }
+
+    // Выгрузка плиток, которые давно не показывались ни на одной карте
+    public void evict() {
+        int now = Bukkit.getCurrentTick();
+        for (Map<Long, Tile> cached : tiles.values()) {
+            cached.values().removeIf(tile -> now - tile.usedAt > EVICT_AFTER && !tile.queued.get());
+        }
+    }
+
+    public void clear() {
+        tiles.clear();
+        issuedAt.clear();
+    }
+
+    private void install(MapView view) {
+        for (MapRenderer renderer : view.getRenderers()) {
+            if (renderer instanceof Renderer) return;
+        }
+        view.addRenderer(new Renderer());
+    }
+
+    private static void invalidate(Map<Long, Tile> cached, int minX, int minZ, int maxX, int maxZ) {
+        for (int scale = 0; scale <= 4; scale++) {
+            int size = TILE << scale;
+            int fromX = Math.floorDiv(minX + 64, size), toX = Math.floorDiv(maxX + 64, size);
+            int fromZ = Math.floorDiv(minZ + 64, size), toZ = Math.floorDiv(maxZ + 64, size);
+            for (int tx = fromX; tx <= toX; tx++) {
+                for (int tz = fromZ; tz <= toZ; tz++) {
+                    Tile tile = cached.get(key(scale, tx, tz));
+                    if (tile != null) tile.stale = true;
+                }
+            }
+        }
+    }
+
+    private static String cellKey(UUID worldId, int scale, int cellX, int cellZ) {
+        return worldId + " " + scale + " " + cellX + " " + cellZ;
+    }
+
+    // Масштаб и координаты плитки в одном ключе: по 30 бит на координату
+    private static long key(int scale, int tileX, int tileZ) {
+        return (long) scale << 60 | (tileX & 0x3FFFFFFFL) << 30 | (tileZ & 0x3FFFFFFFL);
+    }
+
+    // ---------- Пул потоков: растрирование плитки ----------
+
+    private void rasterize(UUID worldId, int scale, int tileX, int tileZ, Tile tile,
+                           RadiationRaster.View zones, RadiationDiffusion.View field, int maxLevel) {
+        try {
+            // Изменение во время растрирования снова пометит плитку устаревшей
+            tile.stale = false;
+            int step = 1 << scale;
+            int samples = Math.min(step, 4);
+            int stride = step / samples;
+            int originX = tileX * (TILE << scale) - 64;
+            int originZ = tileZ * (TILE << scale) - 64;
+            byte[] pixels = new byte[TILE * TILE];
+
+            for (int pz = 0; pz < TILE; pz++) {
+                for (int px = 0; px < TILE; px++) {
+                    // Пиксель накрывает step x step блоков: берём максимум по выборке
+                    int level = 0;
+                    for (int sz = 0; sz < samples; sz++) {
+                        int bz = originZ + pz * step + sz * stride;
+                        for (int sx = 0; sx < samples; sx++) {
+                            int bx = originX + px * step + sx * stride;
+                            int value = Math.max(zones.getLevel(worldId, bx, bz), field.getLevel(worldId, bx, bz))
+                                      + contamination.getLevel(worldId, bx, bz);
+                            if (value > level) level = value;
+                        }
+                    }
+                    pixels[px + pz * TILE] = pixel(Math.min(level, maxLevel), px, pz);
+                }
+            }
+
+            tile.pixels = pixels;
+            tile.version++;
+            generation.incrementAndGet();
+        } finally {
+            tile.queued.set(false);
+        }
+    }
+
+    // Слабая радиация закрашивает часть пикселей, чтобы местность под ней оставалась видна
+    private static byte pixel(int level, int px, int pz) {
+        if (level <= 0) return NONE;
+        if (level < 25) return (px & 1) == 0 && (pz & 1) == 0 ? COLORS[0] : NONE;
+        if (level < 50) return ((px + pz) & 1) == 0 ? COLORS[1] : NONE;
+        if (level < 75) return COLORS[2];
+        if (level < 90) return COLORS[3];
+        return COLORS[4];
+    }
+
+    // ---------- Основной поток: рисование ----------
+
+    private final class Renderer extends MapRenderer {
+        private final Tile[] painted = new Tile[SLOTS * SLOTS];
+        private final int[] paintedVersion = new int[SLOTS * SLOTS];
+        private int lastTick = -1;
+        private long paintedGeneration = -1;
+
+        Renderer() {
+            super(false);
+        }
+
+        // Вызывается для каждого игрока, который видит карту; работа - не больше раза за тик
+        @Override
+        public void render(MapView view, MapCanvas canvas, Player player) {
+            int now = Bukkit.getCurrentTick();
+            if (now == lastTick) return;
+            lastTick = now;
+
+            long ready = generation.get();
+            if (ready == paintedGeneration && now % RESCAN_TICKS != 0) return;
+            paintedGeneration = ready;
+
+            World world = view.getWorld();
+            if (world == null) return;
+            UUID worldId = world.getUID();
+            int scale = view.getScale().ordinal();
+            int size = TILE << scale;
+            int baseX = Math.floorDiv(view.getCenterX() - (64 << scale) + 64, size);
+            int baseZ = Math.floorDiv(view.getCenterZ() - (64 << scale) + 64, size);
+            Map<Long, Tile> cached = tiles.computeIfAbsent(worldId, id -> new ConcurrentHashMap<>());
+            RadiationRaster.View zones = null;
+            RadiationDiffusion.View field = null;
+
+            for (int slot = 0; slot < SLOTS * SLOTS; slot++) {
+                int tileX = baseX + slot % SLOTS;
+                int tileZ = baseZ + slot / SLOTS;
+                Tile tile = cached.computeIfAbsent(key(scale, tileX, tileZ), k -> new Tile());
+                tile.usedAt = now;
+
+                if (tile.stale && tile.queued.compareAndSet(false, true)) {
+                    if (zones == null) {
+                        zones = raster.snapshot();
+                        field = diffusion.snapshot();
+                    }
+                    RadiationRaster.View z = zones;
+                    RadiationDiffusion.View f = field;
+                    int maxLevel = config.getMaxRadiationLevel();
+                    plugin.getComputePool().execute(() -> rasterize(worldId, scale, tileX, tileZ, tile, z, f, maxLevel));
+                }
+
+                byte[] pixels = tile.pixels;
+                if (pixels == null || (painted[slot] == tile && paintedVersion[slot] == tile.version)) continue;
+                painted[slot] = tile;
+                paintedVersion[slot] = tile.version;
+                paint(canvas, slot, pixels);
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private void paint(MapCanvas canvas, int slot, byte[] pixels) {
+            int left = (slot % SLOTS) * TILE;
+            int top = (slot / SLOTS) * TILE;
+            for (int pz = 0; pz < TILE; pz++) {
+                for (int px = 0; px < TILE; px++) {
+                    // Холст сам отмечает изменившиеся пиксели, неизменные игрокам не досылаются
+                    canvas.setPixel(left + px, top + pz, pixels[px + pz * TILE]);
+                }
+            }
+        }
+    }
+
+    // ---------- Номера карт между перезапусками ----------
+
+    // Строка файла: мир, масштаб, клетка X и Z, номер карты
+    private void loadIds() {
+        if (!idsFile.exists()) return;
+        try {
+            for (String line : Files.readAllLines(idsFile.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                String[] parts = line.split(" ");
+                try {
+                    if (parts.length != 5) throw new IllegalArgumentException();
+                    UUID worldId = UUID.fromString(parts[0]);
+                    int id = Integer.parseInt(parts[4]);
+                    cells.put(cellKey(worldId, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                                      Integer.parseInt(parts[3])), id);
+                    mapIds.add(id);
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Неверная строка в " + idsFile.getName() + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Не удалось прочитать " + idsFile.getName(), e);
+        }
+    }
+
+    // Файл переписывается целиком: по строке на клетку, без повторов
+    private void saveIds() {
+        List<String> lines = new ArrayList<>(cells.size());
+        for (Map.Entry<String, Integer> entry : cells.entrySet()) {
+            lines.add(entry.getKey() + " " + entry.getValue());
+        }
+        try {
+            Files.createDirectories(idsFile.getParentFile().toPath());
+            Path temp = idsFile.toPath().resolveSibling(idsFile.getName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, idsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Не удалось сохранить " + idsFile.getName(), e);
+        }
+    }
+}
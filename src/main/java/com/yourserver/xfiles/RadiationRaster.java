@@ -0,0 +1,166 @@
+package com.yourserver.xfiles;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Растр радиации по столбцам блоков: мир -> чанк -> 16x16 ячеек с суммарной
+// интенсивностью и числом зон, накрывающих столбец. Обновляется инкрементально
+// при появлении и исчезновении зон, чтение - один доступ к массиву.
+// Плитки, попавшие в опубликованный снимок, копируются перед изменением (copy-on-write),
+// поэтому снимок можно читать из рабочих потоков без блокировок.
+public class RadiationRaster {
+
+    static final class Tile {
+        final int[] level;
+        final int[] zones;
+        int covered; // сколько ячеек накрыто хотя бы одной зоной
+        boolean shared;
+
+        Tile() {
+            this.level = new int[256];
+            this.zones = new int[256];
+        }
+
+        Tile(Tile other) {
+            this.level = other.level.clone();
+            this.zones = other.zones.clone();
+            this.covered = other.covered;
+        }
+    }
+
+    // Неизменяемый снимок растра
+    public static final class View {
+        private final Map<UUID, LongHashMap<Tile>> worlds;
+
+        private View(Map<UUID, LongHashMap<Tile>> worlds) {
+            this.worlds = worlds;
+        }
+
+        public int getLevel(UUID worldId, int blockX, int blockZ) {
+            Tile tile = tileAt(worlds, worldId, blockX, blockZ);
+            return tile == null ? 0 : tile.level[(blockX & 15) | (blockZ & 15) << 4];
+        }
+
+        public int getZoneCount(UUID worldId, int blockX, int blockZ) {
+            Tile tile = tileAt(worlds, worldId, blockX, blockZ);
+            return tile == null ? 0 : tile.zones[(blockX & 15) | (blockZ & 15) << 4];
+        }
+
+        // Плитки снимка (только чтение): источники для RadiationDiffusion
+        Map<UUID, LongHashMap<Tile>> worlds() {
+            return worlds;
+        }
+    }
+
+    private final Map<UUID, LongHashMap<Tile>> worlds;
+    private View view;
+
+    public RadiationRaster() {
+        this.worlds = new HashMap<>();
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public void addZone(UUID worldId, double x, double z, int radius, int level) {
+        apply(worldId, x, z, radius, level, 1);
+    }
+
+    public void removeZone(UUID worldId, double x, double z, int radius, int level) {
+        apply(worldId, x, z, radius, -level, -1);
+    }
+
+    public void clear() {
+        worlds.clear();
+        view = null;
+    }
+
+    // Суммарная интенсивность в столбце (без ограничения сверху)
+    public int getLevel(UUID worldId, int blockX, int blockZ) {
+        Tile tile = tileAt(worlds, worldId, blockX, blockZ);
+        return tile == null ? 0 : tile.level[(blockX & 15) | (blockZ & 15) << 4];
+    }
+
+    // Количество зон, в радиусе которых находится столбец
+    public int getZoneCount(UUID worldId, int blockX, int blockZ) {
+        Tile tile = tileAt(worlds, worldId, blockX, blockZ);
+        return tile == null ? 0 : tile.zones[(blockX & 15) | (blockZ & 15) << 4];
+    }
+
+    // Снимок для чтения из других потоков; пересобирается только после изменений
+    public View snapshot() {
+        if (view == null) {
+            Map<UUID, LongHashMap<Tile>> copy = new HashMap<>();
+            for (Map.Entry<UUID, LongHashMap<Tile>> entry : worlds.entrySet()) {
+                LongHashMap<Tile> tiles = entry.getValue();
+                for (int i = 0; i < tiles.capacity(); i++) {
+                    Tile tile = tiles.valueAt(i);
+                    if (tile != null) tile.shared = true;
+                }
+                copy.put(entry.getKey(), new LongHashMap<>(tiles));
+            }
+            view = new View(copy);
+        }
+        return view;
+    }
+
+    private static Tile tileAt(Map<UUID, LongHashMap<Tile>> worlds, UUID worldId, int blockX, int blockZ) {
+        LongHashMap<Tile> tiles = worlds.get(worldId);
+        return tiles == null ? null : tiles.get(chunkKey(blockX >> 4, blockZ >> 4));
+    }
+
+    // Столбец входит в зону, если его центр лежит в круге радиуса radius.
+    // Добавление и удаление используют одну и ту же геометрию, поэтому взаимно обратимы.
+    private void apply(UUID worldId, double x, double z, int radius, int levelDelta, int zoneDelta) {
+        LongHashMap<Tile> tiles = worlds.computeIfAbsent(worldId, k -> new LongHashMap<>());
+        double radiusSquared = (double) radius * radius;
+        view = null;
+
+        int minX = (int) Math.floor(x - radius);
+        int maxX = (int) Math.floor(x + radius);
+        int minZ = (int) Math.floor(z - radius);
+        int maxZ = (int) Math.floor(z + radius);
+
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                long key = chunkKey(chunkX, chunkZ);
+                Tile tile = tiles.get(key);
+                if (tile == null) {
+                    if (zoneDelta < 0) continue;
+                    tile = new Tile();
+                    tiles.put(key, tile);
+                } else if (tile.shared) {
+                    tile = new Tile(tile);
+                    tiles.put(key, tile);
+                }
+
+                int fromX = Math.max(minX, chunkX << 4), toX = Math.min(maxX, (chunkX << 4) + 15);
+                int fromZ = Math.max(minZ, chunkZ << 4), toZ = Math.min(maxZ, (chunkZ << 4) + 15);
+                for (int bx = fromX; bx <= toX; bx++) {
+                    double dx = bx + 0.5 - x;
+                    for (int bz = fromZ; bz <= toZ; bz++) {
+                        double dz = bz + 0.5 - z;
+                        if (dx * dx + dz * dz > radiusSquared) continue;
+
+                        int cell = (bx & 15) | (bz & 15) << 4;
+                        int before = tile.zones[cell];
+                        tile.level[cell] += levelDelta;
+                        tile.zones[cell] = before + zoneDelta;
+                        if (before == 0) tile.covered++;
+                        else if (before + zoneDelta == 0) tile.covered--;
+                    }
+                }
+
+                if (tile.covered == 0) {
+                    tiles.remove(key);
+                }
+            }
+        }
+
+        if (tiles.isEmpty()) {
+            worlds.remove(worldId);
+        }
+    }
+}
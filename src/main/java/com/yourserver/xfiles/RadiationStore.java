@@ -0,0 +1,161 @@
+package com.yourserver.xfiles;
+
+import java.util.Arrays;
+
+// Уровни радиации игроков в параллельных примитивных массивах по номеру слота.
+// Распад считается лениво при чтении по времени последнего обновления: линейно
+// (единиц в минуту) или экспоненциально, если задан период полураспада.
+// Слоты с ненулевым уровнем образуют «активное» множество для периодической задачи.
+public class RadiationStore {
+
+    private int[] levels;
+    private long[] updatedAt;
+    private int[] activePos;
+    private int[] active;
+    private int activeCount;
+
+    private double decayPerMs;
+    private double halfLifeMs;
+
+    public RadiationStore() {
+        this.levels = new int[64];
+        this.updatedAt = new long[64];
+        this.activePos = new int[64];
+        this.active = new int[64];
+        Arrays.fill(activePos, -1);
+    }
+
+    public void configureDecay(double decayPerMinute, double halfLifeSeconds) {
+        this.decayPerMs = Math.max(0.0, decayPerMinute) / 60000.0;
+        this.halfLifeMs = Math.max(0.0, halfLifeSeconds) * 1000.0;
+    }
+
+    // Уровень после распада за elapsedMs миллисекунд
+    public int decay(int level, long elapsedMs) {
+        if (level <= 0 || elapsedMs <= 0) return Math.max(level, 0);
+
+        if (halfLifeMs > 0) {
+            return (int) Math.round(level * Math.pow(0.5, elapsedMs / halfLifeMs));
+        }
+        long units = (long) (elapsedMs * decayPerMs);
+        return (int) Math.max(0L, level - units);
+    }
+
+    public int getLevel(int slot, long now) {
+        if (slot < 0 || slot >= levels.length) return 0;
+        return decay(levels[slot], now - updatedAt[slot]);
+    }
+
+    public long getUpdatedAt(int slot) {
+        return slot >= 0 && slot < updatedAt.length ? updatedAt[slot] : 0L;
+    }
+
+    // Изменяет уровень на delta с учётом накопленного распада, результат ограничен [0, max]
+    public int add(int slot, int delta, int max, long now) {
+        ensureCapacity(slot);
+        settle(slot, now);
+        int before = levels[slot];
+        int level = Math.max(0, Math.min(before + delta, max));
+        levels[slot] = level;
+        if (before == 0) {
+            updatedAt[slot] = now; // Отсчёт распада начинается с момента облучения
+        }
+        track(slot);
+        return level;
+    }
+
+    public void setLevel(int slot, int level, long now) {
+        ensureCapacity(slot);
+        levels[slot] = Math.max(level, 0);
+        updatedAt[slot] = now;
+        track(slot);
+    }
+
+    // Восстановление сохранённого состояния без пересчёта распада
+    public void restore(int slot, int level, long timestamp) {
+        ensureCapacity(slot);
+        levels[slot] = Math.max(level, 0);
+        updatedAt[slot] = timestamp;
+        track(slot);
+    }
+
+    public void reset(int slot) {
+        if (slot < 0 || slot >= levels.length) return;
+        levels[slot] = 0;
+        updatedAt[slot] = 0L;
+        track(slot);
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getActiveSlot(int index) {
+        return active[index];
+    }
+
+    // Фиксирует распад в хранимом значении; возвращает false, если уровень упал до нуля
+    // и слот покинул активное множество
+    public boolean settle(int slot, long now) {
+        // Слот за пределами массивов ни разу не облучался (reset их не растит)
+        if (slot < 0 || slot >= levels.length) return false;
+        int stored = levels[slot];
+        if (stored <= 0) {
+            track(slot);
+            return false;
+        }
+
+        long elapsed = now - updatedAt[slot];
+        int level = decay(stored, elapsed);
+        if (halfLifeMs > 0) {
+            if (level != stored) {
+                levels[slot] = level;
+                updatedAt[slot] = now;
+            }
+        } else if (level != stored) {
+            // Сдвигаем отметку времени только на израсходованные целые единицы,
+            // чтобы частые записи не теряли дробный остаток распада
+            levels[slot] = level;
+            updatedAt[slot] = level == 0 ? now : updatedAt[slot] + (long) Math.ceil((stored - level) / decayPerMs);
+        }
+
+        track(slot);
+        return level > 0;
+    }
+
+    public void clear() {
+        Arrays.fill(levels, 0);
+        Arrays.fill(updatedAt, 0L);
+        Arrays.fill(activePos, -1);
+        activeCount = 0;
+    }
+
+    private void track(int slot) {
+        if (slot >= levels.length) return;
+        boolean tracked = activePos[slot] >= 0;
+        if (levels[slot] > 0 && !tracked) {
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            activePos[slot] = activeCount;
+            active[activeCount++] = slot;
+        } else if (levels[slot] <= 0 && tracked) {
+            int pos = activePos[slot];
+            int last = active[--activeCount];
+            active[pos] = last;
+            activePos[last] = pos;
+            activePos[slot] = -1;
+        }
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= levels.length) {
+            int oldCapacity = levels.length;
+            int capacity = Math.max(oldCapacity * 2, slot + 1);
+            levels = Arrays.copyOf(levels, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            activePos = Arrays.copyOf(activePos, capacity);
+            Arrays.fill(activePos, oldCapacity, capacity, -1);
+        }
+    }
+}
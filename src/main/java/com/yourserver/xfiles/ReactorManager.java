@@ -4,236 +4,481 @@ import org.bukkit.*;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 
+// Все реакторы сервера в параллельных массивах (структура массивов) с плотной упаковкой:
+// реактор с номером id лежит по индексу indexById[id], при удалении на его место
+// переезжает последний. Одна задача с фиксированным шагом в тик обходит массивы курсором
+// и обновляет очередную порцию подряд лежащих реакторов: каждый реактор шагает раз в
+// STEP_TICKS тиков, а нагрузка распределена по тикам ровно, без задачи на каждый реактор.
+// Та же задача продвигает ударные волны расплавлений (MeltdownWave) в пределах бюджета.
 public class ReactorManager {
-    
+
+    public static final int STEP_TICKS = 100; // Шаг модели - 5 секунд, как у прежнего одиночного реактора
+
     private final XFilesPlugin plugin;
     private final ConfigManager config;
     private final RadiationManager radiationManager;
-    private final Random random;
-    
-    private boolean reactorActive = false;
-    private int reactorTemperature = 0;
-    private int reactorPower = 0;
-    private Location reactorLocation = null;
-    private BukkitRunnable reactorTask;
-    
+    private final ReactorPhysics physics;
+
+    // Состояние реакторов, индекс - позиция в плотной упаковке
+    private int count;
+    private int[] id = new int[16];
+    private int[] temperature = new int[16];
+    private int[] power = new int[16];
+    private World[] world = new World[16];
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private double[] z = new double[16];
+    private UUID[] owner = new UUID[16];
+    private int[] indexById = new int[16];
+    private int nextId = 1;
+
+    private final List<MeltdownWave> waves = new ArrayList<>();
+    private BukkitRunnable engineTask;
+    private long tick;
+    private int cursor;
+
     public ReactorManager(XFilesPlugin plugin) {
         this.plugin = plugin;
         this.config = plugin.getConfigManager();
         this.radiationManager = plugin.getRadiationManager();
-        this.random = new Random();
+        long seed = config.getSettings().reactorSeed;
+        this.physics = new ReactorPhysics(seed != 0L ? seed : System.nanoTime());
+        Arrays.fill(indexById, -1);
     }
-    
-    public void startReactor(Player player) {
-        if (reactorActive) {
-            player.sendMessage(ChatColor.YELLOW + "[Реактор] Реактор уже запущен");
-            return;
-        }
-        
-        reactorActive = true;
-        reactorTemperature = 100;
-        reactorPower = 50;
-        reactorLocation = player.getLocation();
-        
-        player.sendMessage(config.getMessage("reactor.started").replace("{temp}", String.valueOf(reactorTemperature)));
-        
-        // Запускаем задачу обновления реактора
-        reactorTask = new BukkitRunnable() {
+
+    // Единственная задача движка на все реакторы
+    public void start() {
+        engineTask = new BukkitRunnable() {
             @Override
             public void run() {
-                if (!reactorActive) {
-                    cancel();
-                    return;
-                }
-                
-                updateReactor();
+                Metrics metrics = plugin.getMetrics();
+                long start = metrics.start();
+                step();
+                metrics.stop(Metrics.REACTOR_STEP, start);
             }
         };
-        reactorTask.runTaskTimer(plugin, 100L, 100L); // Каждые 5 секунд
+        engineTask.runTaskTimer(plugin, 1L, 1L);
     }
-    
-    public void stopReactor(Player player) {
-        if (!reactorActive) {
-            player.sendMessage(ChatColor.YELLOW + "[Реактор] Реактор не активен");
+
+    public void shutdown() {
+        if (engineTask != null) {
+            engineTask.cancel();
+            engineTask = null;
+        }
+        waves.clear();
+    }
+
+    public int getReactorCount() {
+        return count;
+    }
+
+    public void startReactor(Player player) {
+        int reactorId = add(nextId++, player.getLocation(), 100, 50, player.getUniqueId());
+
+        player.sendMessage(config.getTemplate(Messages.REACTOR_STARTED).render(100, reactorId));
+        persist(plugin.getPersistence(), indexById[reactorId]);
+    }
+
+    public void stopReactor(Player player, int reactorId) {
+        int index = indexOf(reactorId);
+        if (index < 0) {
+            player.sendMessage(ChatColor.YELLOW + "[Реактор] Реактор #" + reactorId + " не активен");
             return;
         }
-        
-        reactorActive = false;
-        reactorTemperature = 0;
-        reactorPower = 0;
-        
-        if (reactorTask != null) {
-            reactorTask.cancel();
+        if (!canControl(player, index)) {
+            player.sendMessage(config.getMessage("main.no-permission"));
+            return;
         }
-        
-        player.sendMessage(config.getMessage("reactor.stopped"));
-        
+
         // Эффекты остановки
-        if (reactorLocation != null) {
-            reactorLocation.getWorld().spawnParticle(Particle.CLOUD, reactorLocation, 50);
-            reactorLocation.getWorld().playSound(reactorLocation, Sound.BLOCK_FIRE_EXTINGUISH, 1.0f, 1.0f);
-        }
-    }
-    
-    private void updateReactor() {
-        if (!reactorActive) return;
-        
-        // Случайные колебания температуры
-        int tempChange = random.nextInt(20) - 5; // -5 до +15
-        reactorTemperature += tempChange;
-        
-        // Охлаждение при низкой мощности
-        if (reactorPower < 30) {
-            reactorTemperature -= 3;
-        }
-        
-        // Перегрев при высокой мощности
-        if (reactorPower > 70) {
-            reactorTemperature += 5;
-        }
-        
-        // Ограничение температуры
-        reactorTemperature = Math.max(0, Math.min(reactorTemperature, config.getMaxReactorTemperature()));
-        
-        // Визуальные эффекты
-        if (reactorLocation != null) {
-            World world = reactorLocation.getWorld();
-            
-            // Частицы в зависимости от температуры
-            if (reactorTemperature > 300) {
-                world.spawnParticle(Particle.LAVA, reactorLocation, 10);
-            }
-            if (reactorTemperature > 500) {
-                world.spawnParticle(Particle.FLAME, reactorLocation, 5);
+        Location loc = locationOf(index);
+        EffectEmitter emitter = plugin.getEffectEmitter();
+        emitter.particle(loc, Particle.CLOUD, 50, 0, true);
+        emitter.sound(loc, Sound.BLOCK_FIRE_EXTINGUISH, 1.0f, 1.0f, false);
+
+        remove(index);
+        player.sendMessage(config.getMessage("reactor.stopped"));
+    }
+
+    // Один тик движка: за STEP_TICKS тиков курсор проходит все реакторы ровно один раз
+    private void step() {
+        FlightEvents.ReactorTick event = new FlightEvents.ReactorTick();
+        event.begin();
+        XFilesSettings settings = config.getSettings();
+        int activeWaves = waves.size();
+        int waveBlocks = activeWaves > 0 ? advanceWaves(settings) : 0;
+
+        int phase = (int) (tick++ % STEP_TICKS);
+        int total = count;
+        int steps = 0;
+        if (total > 0) {
+            steps = (phase + 1) * total / STEP_TICKS - phase * total / STEP_TICKS;
+            physics.configure(settings.maxReactorTemperature, settings.criticalTemperature, settings.reactorHeatRate,
+                settings.reactorCoolRate, settings.reactorMeltdownChance, settings.reactorEventChance);
+            for (int k = 0; k < steps && count > 0; k++) {
+                if (cursor >= count) cursor = 0;
+                // Удалённый реактор замещается последним, его курсор обновит следующим
+                if (!stepReactor(cursor, settings)) cursor++;
             }
-            if (reactorTemperature > 700) {
-                world.spawnParticle(Particle.SOUL_FIRE_FLAME, reactorLocation, 3);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.reactors = total;
+            event.stepped = steps;
+            event.waves = activeWaves;
+            event.waveBlocks = waveBlocks;
+            event.commit();
+        }
+    }
+
+    // Возвращает false, если реактор расплавился и удалён
+    private boolean stepReactor(int i, XFilesSettings settings) {
+        int flags = physics.step(temperature, power, i);
+        int t = temperature[i];
+
+        showHeat(i, t, settings);
+
+        // Критическая температура
+        if ((flags & ReactorPhysics.CRITICAL) != 0) {
+            triggerMeltdownWarning(i);
+            if ((flags & ReactorPhysics.MELTDOWN) != 0) {
+                meltdown(i);
+                return false;
             }
-            
-            // Звуки
-            float pitch = 0.5f + (reactorTemperature / config.getMaxReactorTemperature()) * 0.5f;
-            world.playSound(reactorLocation, Sound.BLOCK_FURNACE_FIRE_CRACKLE, 0.5f, pitch);
-        }
-        
-        // Проверка критической температуры
-        if (reactorTemperature >= config.getCriticalTemperature()) {
-            triggerMeltdownWarning();
-        }
-        
-        // Случайные события
-        if (random.nextInt(100) < 5) { // 5% шанс события
-            triggerReactorEvent();
-        }
-    }
-    
-    private void triggerMeltdownWarning() {
-        String message = config.getMessage("reactor.critical").replace("{temp}", String.valueOf(reactorTemperature));
-        Bukkit.broadcastMessage(message);
-        
+        }
+
+        if ((flags & ReactorPhysics.EVENT) != 0) {
+            triggerReactorEvent(i);
+        }
+        return true;
+    }
+
+    // Волны делят общий бюджет тика; первая в очереди получает его первой.
+    // Возвращает число обработанных блоков
+    private int advanceWaves(XFilesSettings settings) {
+        long deadline = System.nanoTime() + settings.meltdownBudgetMicros * 1000L;
+        int budget = settings.meltdownBlocksPerTick;
+        EffectEmitter emitter = plugin.getEffectEmitter();
+
+        for (int w = 0; w < waves.size() && budget > 0 && System.nanoTime() < deadline; w++) {
+            budget -= waves.get(w).tick(budget, deadline, radiationManager, emitter);
+        }
+        waves.removeIf(MeltdownWave::isDone);
+        return settings.meltdownBlocksPerTick - budget;
+    }
+
+    private void showHeat(int i, int t, XFilesSettings settings) {
+        Location loc = locationOf(i);
+        EffectEmitter emitter = plugin.getEffectEmitter();
+
+        // Частицы в зависимости от температуры
+        if (t > 300) {
+            emitter.particle(loc, Particle.LAVA, 10, 0, true);
+        }
+        if (t > 500) {
+            emitter.particle(loc, Particle.FLAME, 5, 0, true);
+        }
+        if (t > 700) {
+            emitter.particle(loc, Particle.SOUL_FIRE_FLAME, 3, 0, true);
+        }
+
+        // Треск печи на каждом шаге работающего реактора, при любой температуре
+        float pitch = 0.5f + ((float) t / settings.maxReactorTemperature) * 0.5f;
+        emitter.sound(loc, Sound.BLOCK_FURNACE_FIRE_CRACKLE, 0.5f, pitch, true);
+    }
+
+    private void triggerMeltdownWarning(int i) {
+        plugin.getAlertBus().post("reactor-critical:" + id[i],
+            config.getTemplate(Messages.REACTOR_CRITICAL).render(temperature[i], id[i]),
+            locationOf(i), config.getSettings().alertReactorRadius);
+
         // Звуковое предупреждение
-        if (reactorLocation != null) {
-            reactorLocation.getWorld().playSound(reactorLocation, Sound.ENTITY_LIGHTNING_BOLT_THUNDER, 1.0f, 0.5f);
-        }
-        
-        // 30% шанс расплавления при критической температуре
-        if (random.nextInt(100) < 30) {
-            initiateMeltdown();
-        }
-    }
-    
-    public void initiateMeltdown() {
-        if (!reactorActive) return;
-        
-        Bukkit.broadcastMessage(config.getMessage("reactor.meltdown"));
-        
-        // Взрыв
-        if (reactorLocation != null) {
-            World world = reactorLocation.getWorld();
-            
-            // Большой взрыв
-            world.createExplosion(reactorLocation, config.getMeltdownBlastRadius(), true);
-            
-            // Огненный шар
-            world.spawnParticle(Particle.EXPLOSION, reactorLocation, 50, 3, 3, 3);
-            
-            // Радиационное заражение
-            radiationManager.createRadiationZone(reactorLocation, 80);
-            
-            // Звуки
-            world.playSound(reactorLocation, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.5f);
-            
-            // Остановка реактора
-            reactorActive = false;
-            if (reactorTask != null) {
-                reactorTask.cancel();
-            }
-            
-            // Сообщение о взрыве
-            Bukkit.broadcastMessage(config.getMessage("reactor.explosion"));
-        }
-    }
-    
-    private void triggerReactorEvent() {
-        if (reactorLocation == null) return;
-        
-        String message = config.getMessage("auto-events.reactor-unstable");
-        Bukkit.broadcastMessage(message);
-        
+        plugin.getEffectEmitter().sound(locationOf(i), Sound.ENTITY_LIGHTNING_BOLT_THUNDER, 1.0f, 0.5f, false);
+    }
+
+    public boolean initiateMeltdown(int reactorId) {
+        int index = indexOf(reactorId);
+        if (index < 0) return false;
+        meltdown(index);
+        return true;
+    }
+
+    private void meltdown(int i) {
+        FlightEvents.ReactorMeltdown event = new FlightEvents.ReactorMeltdown();
+        event.begin();
+        int reactorId = id[i];
+        int reactorTemperature = temperature[i];
+        Location loc = locationOf(i);
+        XFilesSettings settings = config.getSettings();
+        AlertBus alerts = plugin.getAlertBus();
+        alerts.post("reactor-meltdown:" + reactorId, config.getMessage("reactor.meltdown"), loc, settings.alertMeltdownRadius);
+
+        // Взрыв в ядре размером с динамит, остальное разрушение - ударная волна по тикам
+        loc.getWorld().createExplosion(loc, Math.min(4.0f, settings.meltdownBlastRadius), true);
+        waves.add(new MeltdownWave(loc, settings.meltdownBlastRadius, settings.meltdownRadiationRadius, 80,
+            settings.meltdownFireChance, physics.nextSeed(), plugin.getComputePool()));
+
+        // Огненный шар
+        plugin.getEffectEmitter().particle(loc, Particle.EXPLOSION, 50, 3, false);
+
+        // Острая радиационная зона; долговременное заражение засевает волна
+        radiationManager.createRadiationZone(loc, 80);
+
+        // Звуки
+        plugin.getEffectEmitter().sound(loc, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.5f, false);
+
+        // Реактор разрушен
+        remove(i);
+
+        // Сообщение о взрыве
+        alerts.post("reactor-explosion:" + reactorId, config.getMessage("reactor.explosion"), loc, settings.alertMeltdownRadius);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.reactorId = reactorId;
+            event.temperature = reactorTemperature;
+            event.blockRadius = settings.meltdownBlastRadius;
+            event.radiationRadius = settings.meltdownRadiationRadius;
+            event.commit();
+        }
+    }
+
+    private void triggerReactorEvent(int i) {
+        plugin.getAlertBus().post("reactor-unstable:" + id[i], config.getMessage("auto-events.reactor-unstable"),
+            locationOf(i), config.getSettings().alertReactorRadius);
+
         // Визуальные эффекты нестабильности
-        World world = reactorLocation.getWorld();
-        world.spawnParticle(Particle.ELECTRIC_SPARK, reactorLocation, 20);
-        world.playSound(reactorLocation, Sound.BLOCK_CONDUIT_AMBIENT, 1.0f, 2.0f);
-        
+        Location loc = locationOf(i);
+        EffectEmitter emitter = plugin.getEffectEmitter();
+        emitter.particle(loc, Particle.ELECTRIC_SPARK, 20, 0, true);
+        emitter.sound(loc, Sound.BLOCK_CONDUIT_AMBIENT, 1.0f, 2.0f, false);
+
         // Всплеск радиации
-        radiationManager.createRadiationZone(reactorLocation, 20);
+        radiationManager.createRadiationZone(loc, 20);
+    }
+
+    // ---------- Хранение ----------
+
+    private int add(int reactorId, Location loc, int temp, int reactorPower, UUID reactorOwner) {
+        if (count == id.length) grow();
+        if (reactorId >= indexById.length) {
+            int old = indexById.length;
+            indexById = Arrays.copyOf(indexById, Math.max(old * 2, reactorId + 1));
+            Arrays.fill(indexById, old, indexById.length, -1);
+        }
+
+        int i = count++;
+        id[i] = reactorId;
+        temperature[i] = temp;
+        power[i] = reactorPower;
+        world[i] = loc.getWorld();
+        x[i] = loc.getX();
+        y[i] = loc.getY();
+        z[i] = loc.getZ();
+        owner[i] = reactorOwner;
+        indexById[reactorId] = i;
+        return reactorId;
+    }
+
+    // Последний реактор переезжает на место удалённого
+    private void remove(int i) {
+        int removedId = id[i];
+        int last = --count;
+        if (i != last) {
+            id[i] = id[last];
+            temperature[i] = temperature[last];
+            power[i] = power[last];
+            world[i] = world[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            z[i] = z[last];
+            owner[i] = owner[last];
+            indexById[id[i]] = i;
+        }
+        world[last] = null;
+        owner[last] = null;
+        indexById[removedId] = -1;
+        plugin.getPersistence().reactorRemoved(removedId);
+    }
+
+    private void grow() {
+        int capacity = id.length * 2;
+        id = Arrays.copyOf(id, capacity);
+        temperature = Arrays.copyOf(temperature, capacity);
+        power = Arrays.copyOf(power, capacity);
+        world = Arrays.copyOf(world, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+    }
+
+    private int indexOf(int reactorId) {
+        return reactorId > 0 && reactorId < indexById.length ? indexById[reactorId] : -1;
+    }
+
+    private Location locationOf(int i) {
+        return new Location(world[i], x[i], y[i], z[i]);
     }
-    
+
+    private boolean canControl(Player player, int i) {
+        return player.getUniqueId().equals(owner[i]) || player.hasPermission("xfiles.admin");
+    }
+
+    // ---------- Сохранение ----------
+
+    // Реактор из сохранения продолжает работу с прежней температурой
+    public void restore(int reactorId, int temp, int reactorPower, Location location, UUID reactorOwner) {
+        if (reactorId <= 0 || indexOf(reactorId) >= 0) return;
+        add(reactorId, location, temp, reactorPower, reactorOwner);
+        nextId = Math.max(nextId, reactorId + 1);
+    }
+
+    // Температуры меняются каждый шаг, поэтому пишутся пачкой вместе с облучением игроков
+    public void persist(PersistenceManager persistence) {
+        for (int i = 0; i < count; i++) {
+            persist(persistence, i);
+        }
+    }
+
+    private void persist(PersistenceManager persistence, int i) {
+        persistence.reactorChanged(id[i], temperature[i], power[i], locationOf(i), owner[i]);
+    }
+
+    // ---------- Команды ----------
+
     public boolean handleCommand(Player player, String[] args) {
         if (args.length == 0) {
-            player.sendMessage(ChatColor.RED + "Используйте: /reactor <start|stop|meltdown|status>");
+            player.sendMessage(ChatColor.RED + "Используйте: /reactor <start|stop|power|meltdown|status|list> [id]");
             return true;
         }
-        
-        switch (args[0].toLowerCase()) {
+
+        String sub = args[0].toLowerCase();
+        switch (sub) {
             case "start":
                 startReactor(player);
-                break;
+                return true;
+            case "list":
+                showList(player);
+                return true;
             case "stop":
-                stopReactor(player);
-                break;
+            case "power":
             case "meltdown":
-                initiateMeltdown();
-                player.sendMessage(ChatColor.RED + "[Реактор] Инициировано расплавление!");
-                break;
             case "status":
-                showStatus(player);
                 break;
             default:
                 player.sendMessage(ChatColor.RED + "Неизвестная подкоманда");
+                return true;
+        }
+
+        // Без номера - ближайший к игроку реактор
+        int reactorId = args.length > 1 ? parseNumber(args[1]) : nearest(player);
+        if (reactorId < 0) {
+            player.sendMessage(ChatColor.RED + "Укажите номер реактора: /reactor " + sub + " <id>");
+            return true;
+        }
+
+        switch (sub) {
+            case "stop":
+                stopReactor(player, reactorId);
+                break;
+            case "power":
+                setPower(player, reactorId, args.length > 2 ? parseNumber(args[2]) : -1);
+                break;
+            case "meltdown": {
+                int index = indexOf(reactorId);
+                if (index >= 0 && !canControl(player, index)) {
+                    player.sendMessage(config.getMessage("main.no-permission"));
+                } else if (initiateMeltdown(reactorId)) {
+                    player.sendMessage(ChatColor.RED + "[Реактор] Инициировано расплавление!");
+                } else {
+                    player.sendMessage(ChatColor.YELLOW + "[Реактор] Реактор #" + reactorId + " не активен");
+                }
+                break;
+            }
+            default:
+                showStatus(player, reactorId);
         }
-        
         return true;
     }
-    
-    private void showStatus(Player player) {
-        String status = reactorActive ? 
-            (reactorTemperature >= config.getCriticalTemperature() ? "&cКРИТИЧЕСКИЙ" : "&aАктивен") : 
-            "&cНеактивен";
-        
-        String message = config.getMessage("reactor.status")
-            .replace("{temp}", String.valueOf(reactorTemperature))
-            .replace("{status}", status);
-        
-        player.sendMessage(message);
-        
-        if (reactorActive) {
-            if (reactorTemperature < 300) {
+
+    private void setPower(Player player, int reactorId, int value) {
+        int index = indexOf(reactorId);
+        if (index < 0 || value < 0) {
+            player.sendMessage(ChatColor.RED + "Используйте: /reactor power <id> <0-100>");
+            return;
+        }
+        if (!canControl(player, index)) {
+            player.sendMessage(config.getMessage("main.no-permission"));
+            return;
+        }
+
+        power[index] = Math.min(100, value);
+        persist(plugin.getPersistence(), index);
+        player.sendMessage(ChatColor.YELLOW + "[Реактор] Мощность реактора #" + reactorId + ": " + power[index] + "%");
+    }
+
+    private static int parseNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Ближайший к игроку реактор в его мире, -1 если таких нет
+    private int nearest(Player player) {
+        Location at = player.getLocation();
+        World in = at.getWorld();
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (world[i] != in) continue;
+            double dx = x[i] - at.getX(), dy = y[i] - at.getY(), dz = z[i] - at.getZ();
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = id[i];
+            }
+        }
+        return best;
+    }
+
+    private void showList(Player player) {
+        if (count == 0) {
+            player.sendMessage(ChatColor.YELLOW + "Активных реакторов нет");
+            return;
+        }
+
+        player.sendMessage(ChatColor.AQUA + "[Реакторы] " + ChatColor.WHITE + "Активные реакторы: " + count);
+        for (int i = 0; i < count; i++) {
+            player.sendMessage(ChatColor.WHITE + "- #" + id[i] + ": " + ChatColor.YELLOW + temperature[i] + "°C"
+                + ChatColor.WHITE + ", мощность " + power[i] + "% в "
+                + (int) Math.floor(x[i]) + ", " + (int) Math.floor(y[i]) + ", " + (int) Math.floor(z[i]));
+        }
+    }
+
+    private void showStatus(Player player, int reactorId) {
+        int index = indexOf(reactorId);
+        int temp = index >= 0 ? temperature[index] : 0;
+        String status = index >= 0 ?
+            (temp >= config.getCriticalTemperature() ? ChatColor.RED + "КРИТИЧЕСКИЙ" : ChatColor.GREEN + "Активен") :
+            ChatColor.RED + "Неактивен";
+
+        player.sendMessage(config.getTemplate(Messages.REACTOR_STATUS).render(temp, status, reactorId));
+
+        if (index >= 0) {
+            if (temp < 300) {
                 player.sendMessage(ChatColor.GREEN + "Температура в норме");
-            } else if (reactorTemperature < 500) {
+            } else if (temp < 500) {
                 player.sendMessage(ChatColor.YELLOW + "Температура повышена");
-            } else if (reactorTemperature < 700) {
+            } else if (temp < 700) {
                 player.sendMessage(ChatColor.GOLD + "Температура высокая");
             } else {
                 player.sendMessage(ChatColor.RED + "КРИТИЧЕСКАЯ ТЕМПЕРАТУРА!");
@@ -0,0 +1,95 @@
+package com.yourserver.xfiles;
+
+// Тепловая модель реактора без зависимостей от Bukkit: один шаг - 5 секунд игрового времени.
+// Генератор случайных чисел (SplitMix64) задаётся зерном, поэтому при одинаковых зерне,
+// настройках и мощностях последовательность температур повторяется точно. Эту же модель
+// использует живой движок (ReactorManager) и офлайн-стенд (ReactorSimulation в модуле xfiles-benchmarks).
+public final class ReactorPhysics {
+
+    // Результат шага - набор флагов
+    public static final int CRITICAL = 1;  // температура достигла критической
+    public static final int MELTDOWN = 2;  // расплавление; реактор нужно удалить
+    public static final int EVENT = 4;     // случайная нестабильность
+
+    public static final int LOW_POWER = 30;  // ниже - охлаждение на cool-rate
+    public static final int HIGH_POWER = 70; // выше - перегрев на heat-rate
+
+    private int maxTemperature = 1000;
+    private int criticalTemperature = 800;
+    private int heatRate = 5;
+    private int coolRate = 3;
+    private int meltdownChance = 30;
+    private int eventChance = 5;
+    private long state;
+
+    public ReactorPhysics(long seed) {
+        this.state = seed;
+    }
+
+    public void configure(int maxTemperature, int criticalTemperature, int heatRate, int coolRate,
+                          int meltdownChance, int eventChance) {
+        this.maxTemperature = maxTemperature;
+        this.criticalTemperature = criticalTemperature;
+        this.heatRate = heatRate;
+        this.coolRate = coolRate;
+        this.meltdownChance = meltdownChance;
+        this.eventChance = eventChance;
+    }
+
+    public void reseed(long seed) {
+        state = seed;
+    }
+
+    // Зерно для производных генераторов (форма взрыва)
+    public long nextSeed() {
+        return ((long) nextInt(1 << 30) << 32) ^ nextInt(1 << 30);
+    }
+
+    public int getCriticalTemperature() {
+        return criticalTemperature;
+    }
+
+    // Шаг реактора i: пишет новую температуру в temperature[i] и возвращает флаги
+    public int step(int[] temperature, int[] power, int i) {
+        // Случайные колебания температуры
+        int t = temperature[i] + nextInt(20) - 5; // -5 до +14
+
+        // Охлаждение при низкой мощности
+        if (power[i] < LOW_POWER) {
+            t -= coolRate;
+        }
+
+        // Перегрев при высокой мощности
+        if (power[i] > HIGH_POWER) {
+            t += heatRate;
+        }
+
+        // Ограничение температуры
+        t = Math.max(0, Math.min(t, maxTemperature));
+        temperature[i] = t;
+
+        int flags = 0;
+        if (t >= criticalTemperature) {
+            flags = CRITICAL;
+            // Шанс расплавления при критической температуре
+            if (nextInt(100) < meltdownChance) {
+                return flags | MELTDOWN;
+            }
+        }
+
+        // Случайные события
+        if (nextInt(100) < eventChance) {
+            flags |= EVENT;
+        }
+        return flags;
+    }
+
+    // SplitMix64; число в [0, bound) умножением вместо деления
+    private int nextInt(int bound) {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,107 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.*;
+import org.bukkit.block.Biome;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+// Запас заранее проверенных точек для автоматических аномалий. Чанк случайной точки
+// загружается асинхронно (getChunkAtAsync), с него снимается ChunkSnapshot, а поверхность,
+// блок под ногами и биом проверяются в пуле потоков. Основной поток только запрашивает
+// новые точки и забирает готовые, поэтому появление аномалии никогда не ждёт диска.
+public class SpawnCandidatePool {
+
+    private static final int MAX_IN_FLIGHT = 2; // одновременных запросов чанков
+
+    private final XFilesPlugin plugin;
+    private final Random random = new Random();
+    private final Queue<Location> ready = new ArrayDeque<>();
+    private final Queue<Location> resolved = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public SpawnCandidatePool(XFilesPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    // Готовая точка или null, если запас пуст (аномалия в этот раз не появится)
+    public Location take() {
+        drain();
+        Location location = ready.poll();
+        refill();
+        return location;
+    }
+
+    public int size() {
+        return ready.size();
+    }
+
+    // Пополнение запаса; вызывается периодически из основного потока
+    public void refill() {
+        drain();
+        XFilesSettings settings = plugin.getConfigManager().getSettings();
+        if (Bukkit.getWorlds().isEmpty()) return;
+        World world = Bukkit.getWorlds().get(0);
+
+        while (inFlight.get() < MAX_IN_FLIGHT && ready.size() + inFlight.get() < settings.spawnPoolSize) {
+            request(world, settings);
+        }
+    }
+
+    public void clear() {
+        ready.clear();
+        resolved.clear();
+    }
+
+    private void drain() {
+        Location location;
+        while ((location = resolved.poll()) != null) {
+            ready.add(location);
+        }
+    }
+
+    private void request(World world, XFilesSettings settings) {
+        Location spawn = world.getSpawnLocation();
+        int radius = settings.spawnRadius;
+        int x = spawn.getBlockX() + random.nextInt(2 * radius + 1) - radius;
+        int z = spawn.getBlockZ() + random.nextInt(2 * radius + 1) - radius;
+        Set<String> excluded = settings.spawnExcludedBiomes;
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight();
+        inFlight.incrementAndGet();
+
+        // Колбэк getChunkAtAsync выполняется в основном потоке: там только снимок чанка
+        world.getChunkAtAsync(x >> 4, z >> 4, settings.spawnGenerateChunks)
+            .thenApply(chunk -> chunk != null ? chunk.getChunkSnapshot(true, true, false) : null)
+            .thenApplyAsync(snapshot -> snapshot != null ? validate(world, snapshot, x, z, minY, maxY, excluded) : null,
+                            plugin.getComputePool())
+            .whenComplete((location, failure) -> {
+                if (failure != null) {
+                    plugin.getLogger().log(Level.FINE, "Не удалось проверить точку для аномалии", failure);
+                } else if (location != null) {
+                    resolved.add(location);
+                }
+                inFlight.decrementAndGet();
+            });
+    }
+
+    // Поверхность столбца: твёрдый блок не в жидкости и не в исключённом биоме
+    private static Location validate(World world, ChunkSnapshot snapshot, int x, int z, int minY, int maxY,
+                                     Set<String> excluded) {
+        int localX = x & 15, localZ = z & 15;
+        int y = snapshot.getHighestBlockYAt(localX, localZ);
+        if (y <= minY || y >= maxY - 2) return null;
+
+        Material ground = snapshot.getBlockType(localX, y, localZ);
+        if (!ground.isSolid() || ground == Material.WATER || ground == Material.LAVA) return null;
+
+        Biome biome = snapshot.getBiome(localX, y, localZ);
+        if (biome != null && excluded.contains(biome.getKey().getKey())) return null;
+
+        return new Location(world, x + 0.5, y + 1, z + 0.5);
+    }
+}
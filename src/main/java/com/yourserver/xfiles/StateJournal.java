@@ -0,0 +1,221 @@
+package com.yourserver.xfiles;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Двоичный журнал изменений со снимком состояния.
+// Каждая запись - кадр [длина][CRC32][данные]; журнал только дописывается, снимок
+// перезаписывается целиком через временный файл и атомарное переименование, после чего
+// журнал обнуляется. Вся запись на диск идёт в одном фоновом потоке, основной поток
+// только ставит готовые байты в очередь. При чтении оборванный или повреждённый хвост
+// журнала (падение сервера посреди записи) отрезается по последнему целому кадру.
+// Заголовки снимка и журнала несут номер поколения, который растёт с каждым сжатием:
+// если сервер упал между заменой снимка и обнулением журнала, старый журнал остаётся
+// рядом с новым снимком, и по меньшему поколению его записи пропускаются при чтении.
+public class StateJournal {
+
+    private static final int JOURNAL_MAGIC_V1 = 0x58464A31;  // "XFJ1", без поколения (поколение 0)
+    private static final int SNAPSHOT_MAGIC_V1 = 0x58465331; // "XFS1"
+    private static final int JOURNAL_MAGIC = 0x58464A32;     // "XFJ2"
+    private static final int SNAPSHOT_MAGIC = 0x58465332;    // "XFS2"
+    private static final int HEADER_SIZE = 12;               // метка и поколение
+    private static final int HEADER_SIZE_V1 = 4;
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final Logger logger;
+    private final ThreadPoolExecutor writer;
+    private final CRC32 crc = new CRC32(); // только поток записи
+    private DataOutputStream out;          // только поток записи
+    private long generation;               // поколение снимка и журнала; после replay - только поток записи
+    private boolean staleJournal;          // журнал на диске старше снимка, при открытии обнуляется
+    private long readGeneration;           // поколение из заголовка последнего прочитанного файла
+    private volatile long appended;
+
+    public StateJournal(Path directory, Logger logger) {
+        this.journalFile = directory.resolve("journal.bin");
+        this.snapshotFile = directory.resolve("state.snap");
+        this.logger = logger;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "XFiles-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Записи снимка, затем журнала, в порядке записи. Вызывается до первого append.
+    public List<byte[]> replay() throws IOException {
+        Files.createDirectories(journalFile.getParent());
+        List<byte[]> records = new ArrayList<>();
+
+        generation = 0L;
+        if (Files.exists(snapshotFile)) {
+            long good = read(snapshotFile, SNAPSHOT_MAGIC, SNAPSHOT_MAGIC_V1, records);
+            if (good < Files.size(snapshotFile)) {
+                logger.warning("Снимок состояния повреждён после " + good + " байт, прочитано записей: " + records.size());
+            }
+            if (good > 0) generation = readGeneration;
+        }
+
+        if (Files.exists(journalFile)) {
+            List<byte[]> journal = new ArrayList<>();
+            long good = read(journalFile, JOURNAL_MAGIC, JOURNAL_MAGIC_V1, journal);
+            long size = Files.size(journalFile);
+            if (good > 0 && readGeneration < generation) {
+                // Сжатие прервано после замены снимка: записи журнала уже вошли в снимок
+                logger.warning("Журнал старше снимка (поколение " + readGeneration + " < " + generation
+                    + "), пропущено записей: " + journal.size());
+                staleJournal = true;
+                return records;
+            }
+            records.addAll(journal);
+            if (good < size) {
+                logger.warning("Отрезан оборванный хвост журнала: " + (size - good) + " байт");
+                try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(good);
+                }
+            }
+        }
+        return records;
+    }
+
+    // Возвращает смещение конца последнего целого кадра (0 - нет целого заголовка);
+    // поколение из заголовка - в readGeneration
+    private long read(Path file, int magic, int legacyMagic, List<byte[]> records) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32 check = new CRC32();
+            long good;
+            try {
+                int header = in.readInt();
+                if (header == magic) {
+                    readGeneration = in.readLong();
+                    good = HEADER_SIZE;
+                } else if (header == legacyMagic) {
+                    readGeneration = 0L;
+                    good = HEADER_SIZE_V1;
+                } else {
+                    logger.warning("Неизвестный формат файла " + file.getFileName());
+                    return 0L;
+                }
+            } catch (EOFException e) {
+                return 0L;
+            }
+
+            while (true) {
+                try {
+                    int length = in.readInt();
+                    int expected = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD) return good;
+
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    check.reset();
+                    check.update(data);
+                    if ((int) check.getValue() != expected) return good;
+
+                    records.add(data);
+                    good += 8 + length;
+                } catch (EOFException e) {
+                    return good;
+                }
+            }
+        }
+    }
+
+    // Дописать запись; не блокирует вызывающий поток
+    public void append(byte[] record) {
+        appended++;
+        writer.execute(() -> {
+            try {
+                if (out == null) open(false);
+                writeFrame(out, record);
+                // Сбрасываем буфер, когда очередь опустела, а не после каждой записи
+                if (writer.getQueue().isEmpty()) out.flush();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка записи журнала", e);
+            }
+        });
+    }
+
+    // Записей в журнале с последнего снимка
+    public long getAppended() {
+        return appended;
+    }
+
+    // Сжатие: полный снимок заменяет старый снимок и весь журнал.
+    // Записи, поставленные в очередь после вызова, попадут уже в новый журнал.
+    public void compact(List<byte[]> snapshot) {
+        appended = 0;
+        writer.execute(() -> {
+            try {
+                long next = generation + 1;
+                Path temp = snapshotFile.resolveSibling("state.snap.tmp");
+                try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                     DataOutputStream snap = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                    snap.writeInt(SNAPSHOT_MAGIC);
+                    snap.writeLong(next);
+                    for (byte[] record : snapshot) {
+                        writeFrame(snap, record);
+                    }
+                    snap.flush();
+                    file.getFD().sync();
+                }
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                // Падение до этой точки оставит журнал прежнего поколения - при чтении он пропустится
+                generation = next;
+                if (out != null) out.close();
+                open(true);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка сжатия журнала", e);
+            }
+        });
+    }
+
+    // Дождаться записи очереди и закрыть файлы (выключение сервера)
+    public void close() {
+        writer.execute(() -> {
+            try {
+                if (out != null) out.close();
+                out = null;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Ошибка закрытия журнала", e);
+            }
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Журнал не успел записаться за 10 секунд");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void open(boolean truncate) throws IOException {
+        boolean fresh = truncate || staleJournal || !Files.exists(journalFile) || Files.size(journalFile) < HEADER_SIZE_V1;
+        staleJournal = false;
+        FileOutputStream file = new FileOutputStream(journalFile.toFile(), !fresh);
+        out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        if (fresh) {
+            out.writeInt(JOURNAL_MAGIC);
+            out.writeLong(generation);
+        }
+    }
+
+    private void writeFrame(DataOutputStream stream, byte[] record) throws IOException {
+        crc.reset();
+        crc.update(record);
+        stream.writeInt(record.length);
+        stream.writeInt((int) crc.getValue());
+        stream.write(record);
+    }
+}
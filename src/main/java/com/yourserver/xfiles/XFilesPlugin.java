@@ -6,38 +6,90 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.*;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.MapInitializeEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 
 public class XFilesPlugin extends JavaPlugin implements Listener {
 
     private static XFilesPlugin instance;
     private ConfigManager configManager;
+    private PlayerSlots playerSlots;
+    private ExpiryWheel expiryWheel;
+    private EffectEmitter effectEmitter;
+    private AlertBus alertBus;
     private AnomalyManager anomalyManager;
     private RadiationManager radiationManager;
     private ReactorManager reactorManager;
+    private PersistenceManager persistence;
+    private PlayerZoneTracker zoneTracker;
+    private ExposurePipeline exposurePipeline;
+    private ForkJoinPool computePool;
+    private SpawnCandidatePool spawnCandidates;
+    private MovementRecorder movementRecorder;
+    private Metrics metrics;
     private Random random;
 
     @Override
     public void onEnable() {
         instance = this;
         this.configManager = new ConfigManager(this);
+        this.metrics = new Metrics();
+        metrics.setEnabled(configManager.getSettings().metricsEnabled);
+        this.playerSlots = new PlayerSlots();
+        this.expiryWheel = new ExpiryWheel();
+        this.effectEmitter = new EffectEmitter(this);
+        this.alertBus = new AlertBus(this);
+        this.movementRecorder = new MovementRecorder(this);
+        int threads = configManager.getComputeThreads();
+        this.computePool = new ForkJoinPool(threads > 0 ? threads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
         this.anomalyManager = new AnomalyManager(this);
         this.radiationManager = new RadiationManager(this);
         this.reactorManager = new ReactorManager(this);
+        this.persistence = new PersistenceManager(this);
+        if (configManager.getSettings().persistenceEnabled) {
+            persistence.restore();
+        }
+        this.zoneTracker = new PlayerZoneTracker(playerSlots);
+        this.exposurePipeline = new ExposurePipeline(this, zoneTracker,
+            anomalyManager.getIndex(), radiationManager.getRaster(), radiationManager.getDiffusion(),
+            radiationManager.getContamination());
+        this.spawnCandidates = new SpawnCandidatePool(this);
         this.random = new Random();
 
+        // Слоты для игроков, уже находящихся на сервере (перезагрузка плагина)
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            radiationManager.handleJoin(player);
+        }
+
         // Регистрируем события
         getServer().getPluginManager().registerEvents(this, this);
         
         // Запускаем задачи
+        startExpiryWheel();
         startAnomalyScheduler();
         startRadiationCheck();
+        startExposurePipeline();
+        startRadiationDiffusion();
+        startGeigerHud();
+        reactorManager.start();
+        startEffectEmitter();
+        startMovementRecorder();
+        startMetrics();
+        startPersistence();
 
         getLogger().info("Система аномалий активирована. Обнаружены нестабильные зоны...");
         Bukkit.broadcastMessage(ChatColor.BLUE + "[Секретные Материалы] " + 
@@ -46,8 +98,20 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
 
     @Override
     public void onDisable() {
+        movementRecorder.stop();
+        exposurePipeline.shutdown();
+        computePool.shutdownNow();
+        reactorManager.shutdown();
+        spawnCandidates.clear();
+        // Финальный снимок до очистки менеджеров
+        persistence.shutdown();
+        zoneTracker.clear();
         anomalyManager.cleanup();
         radiationManager.cleanup();
+        expiryWheel.clear();
+        effectEmitter.clear();
+        alertBus.clear();
+        playerSlots.clear();
         getLogger().info("Система аномалий деактивирована.");
     }
 
@@ -59,6 +123,31 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
         return configManager;
     }
 
+    public PlayerSlots getPlayerSlots() {
+        return playerSlots;
+    }
+
+    public ExpiryWheel getExpiryWheel() {
+        return expiryWheel;
+    }
+
+    public PersistenceManager getPersistence() {
+        return persistence;
+    }
+
+    // Общий пул для расчётов вне основного потока (облучение, распространение радиации)
+    public ForkJoinPool getComputePool() {
+        return computePool;
+    }
+
+    public EffectEmitter getEffectEmitter() {
+        return effectEmitter;
+    }
+
+    public AlertBus getAlertBus() {
+        return alertBus;
+    }
+
     public AnomalyManager getAnomalyManager() {
         return anomalyManager;
     }
@@ -71,10 +160,38 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
         return reactorManager;
     }
 
+    public MovementRecorder getMovementRecorder() {
+        return movementRecorder;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    // Единый планировщик истечения срока для аномалий и радиационных зон
+    private void startExpiryWheel() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long start = metrics.start();
+                expiryWheel.tick();
+                metrics.stop(Metrics.EXPIRY_TICK, start);
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
     // Автоматическое создание аномалий
     private void startAnomalyScheduler() {
         if (!configManager.isAutoAnomaliesEnabled()) return;
 
+        // Запас точек пополняется заранее, асинхронной загрузкой чанков
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                spawnCandidates.refill();
+            }
+        }.runTaskTimer(this, 20L, 100L);
+
         new BukkitRunnable() {
             @Override
             public void run() {
@@ -91,43 +208,163 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
         new BukkitRunnable() {
             @Override
             public void run() {
+                long start = metrics.start();
                 radiationManager.updateRadiationEffects();
+                metrics.stop(Metrics.RADIATION_UPDATE, start);
+                radiationManager.pageContamination();
             }
         }.runTaskTimer(this, 100L, 100L); // Каждые 5 секунд
     }
 
+    // Конвейер облучения: снимок позиций, расчёт вне основного потока, применение
+    private void startExposurePipeline() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long start = metrics.start();
+                exposurePipeline.tick();
+                metrics.stop(Metrics.EXPOSURE_TICK, start);
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    // Распространение радиации от зон; шаг считается в пуле раз в diffusion-interval тиков
+    private void startRadiationDiffusion() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long start = metrics.start();
+                radiationManager.tickDiffusion();
+                metrics.stop(Metrics.RADIATION_DIFFUSION, start);
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    // Показания счётчика Гейгера и щелчки; до рассылки эффектов, чтобы щелчки ушли в том же тике
+    private void startGeigerHud() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                radiationManager.tickHud();
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    // Рассылка накопленных за тик частиц, звуков и оповещений; запускается последней из задач тика
+    private void startEffectEmitter() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                long start = metrics.start();
+                effectEmitter.flush();
+                alertBus.flush();
+                metrics.stop(Metrics.EFFECT_FLUSH, start);
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    // Отсчёт тиков и сброс на диск трассы движения (если запись включена)
+    private void startMovementRecorder() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                movementRecorder.tick();
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    // Счёт тиков для замеров и периодическая выгрузка замеров в CSV (в фоне)
+    private void startMetrics() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                metrics.tick();
+            }
+        }.runTaskTimer(this, 1L, 1L);
+
+        new BukkitRunnable() {
+            private long seconds;
+
+            @Override
+            public void run() {
+                long interval = configManager.getSettings().metricsCsvInterval;
+                if (interval <= 0 || !metrics.isEnabled() || ++seconds < interval) return;
+                seconds = 0;
+                try {
+                    metrics.appendCsv(new File(getDataFolder(), "metrics.csv").toPath());
+                } catch (IOException e) {
+                    getLogger().log(Level.WARNING, "Не удалось выгрузить замеры в metrics.csv", e);
+                }
+            }
+        }.runTaskTimerAsynchronously(this, 20L, 20L);
+    }
+
+    // Запись облучения игроков и температур реакторов, сжатие журнала
+    private void startPersistence() {
+        XFilesSettings settings = configManager.getSettings();
+        if (!settings.persistenceEnabled) return;
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                persistence.flush();
+            }
+        }.runTaskTimer(this, settings.persistenceFlushInterval, settings.persistenceFlushInterval);
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                persistence.compactIfDirty();
+            }
+        }.runTaskTimer(this, settings.persistenceCompactInterval, settings.persistenceCompactInterval);
+    }
+
     private void createRandomAnomaly() {
-        List<String> types = configManager.getAnomalyTypes();
-        String randomType = types.get(random.nextInt(types.size()));
-        World world = Bukkit.getWorlds().get(0);
-        
-        // Случайное место в мире
-        Location location = world.getSpawnLocation().clone().add(
-            random.nextInt(1000) - 500,
-            0,
-            random.nextInt(1000) - 500
-        );
+        // Точка берётся из заранее проверенного запаса; пустой запас - пропуск, а не загрузка чанка
+        Location location = spawnCandidates.take();
+        if (location == null) return;
         
-        // Находим поверхность
-        location.setY(world.getHighestBlockYAt(location) + 1);
+        List<AnomalyType> types = List.copyOf(configManager.getAnomalyTypeRegistry());
+        AnomalyType randomType = types.get(random.nextInt(types.size()));
+        if (anomalyManager.createAnomaly(randomType, location) == null) return;
         
-        anomalyManager.createAnomaly(randomType, location);
-        
-        String message = configManager.getMessage("auto-events.anomaly-spawn")
-            .replace("{type}", randomType);
-        Bukkit.broadcastMessage(message);
+        alertBus.post("anomaly-spawn:" + randomType.name,
+            configManager.getTemplate(Messages.ANOMALY_AUTO_SPAWN).render(randomType.name),
+            location, configManager.getSettings().alertAnomalyRadius);
     }
 
-    @EventHandler
+    @EventHandler(ignoreCancelled = true)
     public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-        Location location = player.getLocation();
-        
-        // Проверка аномалий
-        anomalyManager.checkAnomalyEffects(player, location);
-        
-        // Проверка радиации
-        radiationManager.checkRadiationExposure(player, location);
+        long start = metrics.start();
+        // Аномалии и радиация пересчитываются конвейером только при смене блока
+        zoneTracker.handleMove(event.getPlayer(), event.getTo());
+        if (movementRecorder.isRecording()) {
+            movementRecorder.move(playerSlots.slotOf(event.getPlayer()), event.getTo());
+        }
+        metrics.stop(Metrics.PLAYER_MOVE, start);
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        radiationManager.handleJoin(event.getPlayer());
+        if (movementRecorder.isRecording()) {
+            int slot = playerSlots.slotOf(event.getPlayer());
+            movementRecorder.join(slot);
+            movementRecorder.move(slot, event.getPlayer().getLocation());
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        movementRecorder.quit(playerSlots.slotOf(event.getPlayer().getUniqueId()));
+        zoneTracker.forget(playerSlots.slotOf(event.getPlayer().getUniqueId()));
+        radiationManager.handleQuit(event.getPlayer());
+    }
+
+    // Карты радиации, выданные до перезапуска, снова получают свой рендерер при загрузке
+    @EventHandler
+    public void onMapInitialize(MapInitializeEvent event) {
+        radiationManager.getMap().attach(event.getMap());
     }
 
     @Override
@@ -160,6 +397,28 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
         }
 
         switch (args[0].toLowerCase()) {
+            case "reload":
+                if (!player.hasPermission("xfiles.admin")) {
+                    player.sendMessage(configManager.getMessage("main.no-permission"));
+                    break;
+                }
+                reloadPlugin();
+                player.sendMessage(configManager.getMessage("main.reload-success"));
+                break;
+            case "trace":
+                if (!player.hasPermission("xfiles.admin")) {
+                    player.sendMessage(configManager.getMessage("main.no-permission"));
+                    break;
+                }
+                handleTraceCommand(player, args);
+                break;
+            case "stats":
+                if (!player.hasPermission("xfiles.admin")) {
+                    player.sendMessage(configManager.getMessage("main.no-permission"));
+                    break;
+                }
+                handleStatsCommand(player, args);
+                break;
             case "investigate":
                 player.sendMessage(ChatColor.BLUE + "[Расследование] " + 
                                  ChatColor.WHITE + "Начато расследование аномальной активности...");
@@ -173,6 +432,85 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
         return true;
     }
 
+    // Запись трассы движения для офлайн-прогона: /xfiles trace <start [имя]|stop>
+    private void handleTraceCommand(Player player, String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+        switch (action) {
+            case "start":
+                if (movementRecorder.isRecording()) {
+                    player.sendMessage(configManager.getMessage("trace.already-running"));
+                    return;
+                }
+                String name = args.length > 2 ? args[2].replaceAll("[^A-Za-z0-9_-]", "")
+                    : "trace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+                File file = new File(new File(getDataFolder(), "traces"), name + ".xft");
+                movementRecorder.start(file, configManager.getSettings().traceMaxTicks);
+                player.sendMessage(configManager.getTemplate(Messages.TRACE_STARTED).render(file.getName()));
+                break;
+            case "stop":
+                if (!movementRecorder.isRecording()) {
+                    player.sendMessage(configManager.getMessage("trace.not-running"));
+                    return;
+                }
+                String fileName = movementRecorder.getFile().getName();
+                long records = movementRecorder.stop();
+                player.sendMessage(configManager.getTemplate(Messages.TRACE_STOPPED).render(fileName, records));
+                break;
+            default:
+                player.sendMessage(ChatColor.RED + "Используйте /xfiles trace <start [имя]|stop>");
+        }
+    }
+
+    // Замеры подсистем: /xfiles stats [on|off|reset]
+    private void handleStatsCommand(Player player, String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+        switch (action) {
+            case "on":
+                metrics.setEnabled(true);
+                player.sendMessage(ChatColor.GREEN + "[Замеры] Замеры включены");
+                return;
+            case "off":
+                metrics.setEnabled(false);
+                player.sendMessage(ChatColor.YELLOW + "[Замеры] Замеры выключены");
+                return;
+            case "reset":
+                metrics.reset();
+                player.sendMessage(ChatColor.GREEN + "[Замеры] Замеры сброшены");
+                return;
+            default:
+                break;
+        }
+
+        long ticks = Math.max(1L, metrics.getTicks());
+        long minutes = (System.currentTimeMillis() - metrics.getStartedAt()) / 60000L;
+        player.sendMessage(ChatColor.BLUE + "=== Замеры X-Files: " + ticks + " тиков, " + minutes + " мин"
+            + (metrics.isEnabled() ? "" : ChatColor.RED + " (выключены: /xfiles stats on)") + ChatColor.BLUE + " ===");
+        for (Metrics.Timer timer : Metrics.timers()) {
+            Metrics.Sample sample = metrics.sample(timer);
+            if (sample.calls == 0) continue;
+            player.sendMessage(ChatColor.GREEN + timer.name + ChatColor.WHITE + String.format(Locale.ROOT,
+                ": %.2f/тик, p50 %s, p99 %s, макс %s, всего %.1f мс/тик", (double) sample.calls / ticks,
+                micros(sample.percentile(0.50)), micros(sample.percentile(0.99)), micros(sample.max),
+                sample.nanos / 1e6 / ticks));
+        }
+        for (Metrics.Counter counter : Metrics.counters()) {
+            long count = metrics.getCount(counter);
+            player.sendMessage(ChatColor.AQUA + counter.name + ChatColor.WHITE + String.format(Locale.ROOT,
+                ": %d (%.2f/тик)", count, (double) count / ticks));
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f мкс", nanos / 1000.0);
+    }
+
+    // Перезагрузка конфигурации: новый снимок настроек подменяется атомарно
+    public void reloadPlugin() {
+        configManager.reloadConfigs();
+        radiationManager.reloadSettings();
+        metrics.setEnabled(configManager.getSettings().metricsEnabled);
+    }
+
     private void showHelp(Player player) {
         player.sendMessage(ChatColor.BLUE + "=== The X-Files - Система Аномалий ===");
         player.sendMessage(ChatColor.GREEN + "/anomaly create <тип> " + 
@@ -185,6 +523,12 @@ public class XFilesPlugin extends JavaPlugin implements Listener {
                           ChatColor.WHITE + "- Расплавить реактор (опасно!)");
         player.sendMessage(ChatColor.GREEN + "/radiation check " + 
                           ChatColor.WHITE + "- Проверить уровень радиации");
+        player.sendMessage(ChatColor.GREEN + "/xfiles reload " + 
+                          ChatColor.WHITE + "- Перезагрузить конфигурацию");
+        player.sendMessage(ChatColor.GREEN + "/xfiles stats [on|off|reset] " + 
+                          ChatColor.WHITE + "- Замеры времени подсистем плагина");
+        player.sendMessage(ChatColor.GREEN + "/xfiles trace <start|stop> " + 
+                          ChatColor.WHITE + "- Запись движения игроков для нагрузочного прогона");
         player.sendMessage(ChatColor.YELLOW + "Типы аномалий: " + 
                           ChatColor.WHITE + "GRAVITATIONAL, RADIATION, TEMPORAL, etc.");
     }
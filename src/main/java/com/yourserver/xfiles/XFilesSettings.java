@@ -0,0 +1,227 @@
+package com.yourserver.xfiles;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+// Неизменяемый снимок config.yml с уже разобранными и проверенными значениями.
+// Горячие пути читают поля снимка напрямую, без обращений к YAML и разбора строк;
+// перезагрузка конфигурации подменяет снимок целиком одной атомарной записью.
+public final class XFilesSettings {
+
+    private static final List<String> DEFAULT_ANOMALY_TYPES = List.of(
+        "GRAVITATIONAL", "TEMPORAL", "RADIATION", "BIOLOGICAL",
+        "PSYCHIC", "DIMENSIONAL", "ELECTROMAGNETIC", "QUANTUM");
+
+    // Основные настройки
+    public final boolean autoAnomaliesEnabled;
+    public final int randomAnomalyChance;
+    public final long autoAnomalyInterval;
+    public final long effectRefreshInterval;
+
+    // Аномалии
+    public final int maxAnomalies;
+    public final List<String> anomalyTypes;
+    public final int anomalyEffectRadius;
+    public final double anomalyEffectRadiusSquared; // для сравнения с квадратом расстояния
+    public final int anomalyDuration;
+    public final int spawnRadius;
+    public final int spawnPoolSize;
+    public final boolean spawnGenerateChunks;
+    public final Set<String> spawnExcludedBiomes;
+
+    // Радиация
+    public final boolean radiationEnabled;
+    public final int maxRadiationLevel;
+    public final double radiationDecayRate;
+    public final double radiationHalfLife;
+    public final int contaminationRadius;
+    public final double radiationSpreadSpeed;
+    public final long radiationDiffusionInterval;
+    public final double radiationDiffusionDecay;
+    public final int radiationMapScale;
+    public final long radiationMapCooldown;
+    public final boolean hudEnabled;
+    public final int hudInterval;
+    public final int hudMaxClicks;
+    public final int contaminationPageMargin;
+    public final long contaminationUnloadAfter;
+    public final List<PotionEffectType> radiationEffects;
+    private final PotionEffect[][] radiationEffectTiers;
+    public final PotionEffect radiationWither;      // уровень выше 75
+    public final PotionEffect radiationBlindness;   // уровень выше 90
+
+    // Реактор
+    public final int maxReactorTemperature;
+    public final int criticalTemperature;
+    public final int reactorHeatRate;
+    public final int reactorCoolRate;
+    public final int reactorMeltdownChance;
+    public final int reactorEventChance;
+    public final long reactorSeed;
+    public final int meltdownBlastRadius;
+    public final int meltdownRadiationRadius;
+    public final int meltdownFireChance;
+
+    // Оповещения
+    public final long alertDedupeWindow;
+    public final double alertReactorRadius;
+    public final double alertMeltdownRadius;
+    public final double alertAnomalyRadius;
+
+    // Производительность
+    public final int computeThreads;
+    public final long applyBudgetMicros;
+    public final int effectGlobalBudget;
+    public final int effectPlayerBudget;
+    public final double effectFullDetailDistance;
+    public final double effectViewDistance;
+    public final int meltdownBlocksPerTick;
+    public final long meltdownBudgetMicros;
+    public final long traceMaxTicks;
+    public final boolean metricsEnabled;
+    public final long metricsCsvInterval;
+
+    // Сохранение состояния
+    public final boolean persistenceEnabled;
+    public final long persistenceFlushInterval;
+    public final long persistenceCompactInterval;
+
+    private XFilesSettings(ConfigurationSection config, Logger logger) {
+        autoAnomaliesEnabled = config.getBoolean("settings.enable-auto-anomalies", true);
+        randomAnomalyChance = clamp(config.getInt("settings.random-anomaly-chance", 20), 0, 100);
+        autoAnomalyInterval = Math.max(1L, config.getLong("settings.auto-anomaly-interval", 24000L));
+        effectRefreshInterval = Math.max(1L, config.getLong("settings.effect-refresh-interval", 20L));
+
+        maxAnomalies = Math.max(0, config.getInt("anomaly-settings.max-anomalies", 10));
+        anomalyTypes = parseAnomalyTypes(config.getStringList("anomaly-settings.types"), logger);
+        anomalyEffectRadius = Math.max(1, config.getInt("anomaly-settings.effect-radius", 15));
+        anomalyEffectRadiusSquared = (double) anomalyEffectRadius * anomalyEffectRadius;
+        anomalyDuration = Math.max(1, config.getInt("anomaly-settings.duration", 12000));
+        spawnRadius = clamp(config.getInt("anomaly-settings.spawn-radius", 500), 16, 30_000_000);
+        spawnPoolSize = clamp(config.getInt("anomaly-settings.spawn-pool-size", 8), 1, 256);
+        spawnGenerateChunks = config.getBoolean("anomaly-settings.spawn-generate-chunks", false);
+        spawnExcludedBiomes = parseBiomes(config.getStringList("anomaly-settings.spawn-excluded-biomes"));
+
+        radiationEnabled = config.getBoolean("radiation-settings.enable-radiation", true);
+        maxRadiationLevel = Math.max(1, config.getInt("radiation-settings.max-radiation-level", 100));
+        radiationDecayRate = Math.max(0.0, config.getDouble("radiation-settings.decay-rate", 1.2));
+        radiationHalfLife = Math.max(0.0, config.getDouble("radiation-settings.decay-half-life", 0.0));
+        contaminationRadius = Math.max(1, config.getInt("radiation-settings.contamination-radius", 10));
+        radiationSpreadSpeed = Math.max(0.0, config.getDouble("radiation-settings.spread-speed", 1.0));
+        radiationDiffusionInterval = Math.max(1L, config.getLong("radiation-settings.diffusion-interval", 20L));
+        radiationDiffusionDecay = Math.max(0.0, Math.min(1.0, config.getDouble("radiation-settings.diffusion-decay", 0.02)));
+        radiationMapScale = Math.max(0, Math.min(4, config.getInt("radiation-settings.map-scale", 1)));
+        radiationMapCooldown = Math.max(0L, config.getLong("radiation-settings.map-cooldown", 30L));
+        hudEnabled = config.getBoolean("radiation-settings.hud.enabled", true);
+        hudInterval = clamp(config.getInt("radiation-settings.hud.interval", 10), 1, 200);
+        hudMaxClicks = clamp(config.getInt("radiation-settings.hud.max-clicks", 8), 0, 20);
+        contaminationPageMargin = clamp(config.getInt("radiation-settings.contamination-page-margin", 128), 0, 512);
+        contaminationUnloadAfter = Math.max(20L, config.getLong("radiation-settings.contamination-unload-after", 1200L));
+        radiationEffects = parseEffects(config.getStringList("radiation-settings.radiation-effects"), logger);
+        radiationEffectTiers = buildEffectTiers(radiationEffects, maxRadiationLevel);
+        radiationWither = new PotionEffect(PotionEffectType.WITHER, 100, 1);
+        radiationBlindness = new PotionEffect(PotionEffectType.BLINDNESS, 100, 0);
+
+        maxReactorTemperature = Math.max(1, config.getInt("reactor-settings.max-temperature", 1000));
+        criticalTemperature = clamp(config.getInt("reactor-settings.critical-temperature", 800), 1, maxReactorTemperature);
+        reactorHeatRate = Math.max(0, config.getInt("reactor-settings.heat-rate", 5));
+        reactorCoolRate = Math.max(0, config.getInt("reactor-settings.cool-rate", 3));
+        reactorMeltdownChance = clamp(config.getInt("reactor-settings.meltdown-chance", 30), 0, 100);
+        reactorEventChance = clamp(config.getInt("reactor-settings.event-chance", 5), 0, 100);
+        reactorSeed = config.getLong("reactor-settings.seed", 0L);
+        meltdownBlastRadius = clamp(config.getInt("reactor-settings.meltdown-blast-radius", 15), 0, 128);
+        meltdownRadiationRadius = Math.max(0, config.getInt("reactor-settings.meltdown-radiation-radius", 50));
+        meltdownFireChance = clamp(config.getInt("reactor-settings.meltdown-fire-chance", 10), 0, 100);
+
+        alertDedupeWindow = Math.max(1L, config.getLong("alerts.dedupe-window", 1200L));
+        alertReactorRadius = Math.max(0.0, config.getDouble("alerts.reactor-radius", 256.0));
+        alertMeltdownRadius = Math.max(0.0, config.getDouble("alerts.meltdown-radius", 0.0));
+        alertAnomalyRadius = Math.max(0.0, config.getDouble("alerts.anomaly-radius", 0.0));
+
+        computeThreads = Math.max(0, config.getInt("performance.compute-threads", 0));
+        applyBudgetMicros = Math.max(100L, config.getLong("performance.apply-budget-micros", 2000L));
+        effectGlobalBudget = Math.max(0, config.getInt("performance.effects.global-packet-budget", 2000));
+        effectPlayerBudget = Math.max(0, config.getInt("performance.effects.player-packet-budget", 40));
+        effectViewDistance = Math.max(1.0, config.getDouble("performance.effects.view-distance", 32.0));
+        effectFullDetailDistance = Math.min(effectViewDistance - 1.0,
+            Math.max(0.0, config.getDouble("performance.effects.full-detail-distance", 12.0)));
+        meltdownBlocksPerTick = Math.max(1, config.getInt("performance.meltdown.blocks-per-tick", 1500));
+        meltdownBudgetMicros = Math.max(100L, config.getLong("performance.meltdown.budget-micros", 2000L));
+        traceMaxTicks = Math.max(1L, config.getLong("performance.trace.max-minutes", 180L)) * 1200L;
+        metricsEnabled = config.getBoolean("performance.metrics.enabled", false);
+        metricsCsvInterval = Math.max(0L, config.getLong("performance.metrics.csv-interval", 0L));
+
+        persistenceEnabled = config.getBoolean("persistence.enabled", true);
+        persistenceFlushInterval = Math.max(20L, config.getLong("persistence.flush-interval", 600L));
+        persistenceCompactInterval = Math.max(200L, config.getLong("persistence.compact-interval", 6000L));
+    }
+
+    // Готовые эффекты радиации для уровня: усиление растёт на единицу каждые 25 единиц
+    public PotionEffect[] getRadiationEffects(int level) {
+        int tier = Math.max(0, Math.min(level / 25, radiationEffectTiers.length - 1));
+        return radiationEffectTiers[tier];
+    }
+
+    public static XFilesSettings load(ConfigurationSection config, Logger logger) {
+        return new XFilesSettings(config, logger);
+    }
+
+    private static List<String> parseAnomalyTypes(List<String> raw, Logger logger) {
+        Set<String> types = new LinkedHashSet<>();
+        for (String name : raw) {
+            if (name == null || name.isBlank()) continue;
+            types.add(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        if (types.isEmpty()) {
+            logger.warning("anomaly-settings.types пуст, используются типы по умолчанию");
+            return DEFAULT_ANOMALY_TYPES;
+        }
+        return List.copyOf(types);
+    }
+
+    // Ключи биомов без пространства имён: "minecraft:deep_ocean" и "DEEP_OCEAN" -> "deep_ocean"
+    private static Set<String> parseBiomes(List<String> raw) {
+        Set<String> biomes = new HashSet<>();
+        for (String name : raw) {
+            if (name == null || name.isBlank()) continue;
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            biomes.add(key.substring(key.indexOf(':') + 1));
+        }
+        return Set.copyOf(biomes);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<PotionEffectType> parseEffects(List<String> raw, Logger logger) {
+        List<PotionEffectType> effects = new ArrayList<>(raw.size());
+        for (String name : raw) {
+            // getByName понимает и устаревшие имена вроде SLOW
+            PotionEffectType type = name == null ? null : PotionEffectType.getByName(name.trim());
+            if (type == null) {
+                logger.warning("Неизвестный эффект в radiation-settings.radiation-effects: " + name);
+                continue;
+            }
+            effects.add(type);
+        }
+        return List.copyOf(effects);
+    }
+
+    private static PotionEffect[][] buildEffectTiers(List<PotionEffectType> types, int maxLevel) {
+        PotionEffect[][] tiers = new PotionEffect[maxLevel / 25 + 1][];
+        for (int amplifier = 0; amplifier < tiers.length; amplifier++) {
+            tiers[amplifier] = new PotionEffect[types.size()];
+            for (int i = 0; i < types.size(); i++) {
+                tiers[amplifier][i] = new PotionEffect(types.get(i), 100, amplifier);
+            }
+        }
+        return tiers;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+}
@@ -0,0 +1,37 @@
+package com.yourserver.xfiles;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadiationStoreTest {
+
+    // Вход и выход игрока в слоте за начальной ёмкостью массивов (64), без облучения
+    @Test
+    void joinQuitBeyondInitialCapacity() {
+        RadiationStore store = new RadiationStore();
+        int slot = 70;
+
+        store.reset(slot);                        // handleJoin без сохранённого уровня
+        assertFalse(store.settle(slot, 1000L));   // handleQuit
+        assertEquals(0, store.getLevel(slot, 1000L));
+        store.reset(slot);
+        assertEquals(0, store.getActiveCount());
+    }
+
+    @Test
+    void irradiatedSlotBeyondInitialCapacity() {
+        RadiationStore store = new RadiationStore();
+        store.configureDecay(1.2, 0.0);
+        int slot = 130;
+
+        store.add(slot, 40, 100, 0L);
+        assertEquals(1, store.getActiveCount());
+        assertTrue(store.settle(slot, 1000L));
+        assertEquals(40, store.getLevel(slot, 1000L));
+
+        store.reset(slot);
+        assertFalse(store.settle(slot, 2000L));
+        assertEquals(0, store.getActiveCount());
+    }
+}
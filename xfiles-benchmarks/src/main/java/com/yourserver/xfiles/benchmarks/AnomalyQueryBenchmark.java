@@ -0,0 +1,58 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.AnomalyIndex;
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Проверка эффектов аномалий (бывший checkAnomalyEffects): стоимость одного перемещения
+// игрока - запрос к снимку пространственного индекса, как в конвейере воздействия.
+// Позиции перебираются по кругу, чтобы запросы попадали в разные ячейки индекса.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnomalyQueryBenchmark {
+
+    private static final int SPREAD = 4000; // сторона квадрата, по которому разбросаны аномалии и игроки
+    private static final int POSITIONS = 1024; // степень двойки
+
+    @Param({"10", "100", "1000", "10000"})
+    public int anomalyCount;
+
+    private AnomalyIndex.View index;
+    private Location[] players;
+    private int next;
+    private final List<Anomaly> hits = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        World world = StandIns.world("world");
+        AnomalyIndex anomalies = new AnomalyIndex(32);
+        Random random = new Random(42);
+        for (int i = 0; i < anomalyCount; i++) {
+            Location location = new Location(world, random.nextInt(SPREAD) - SPREAD / 2.0, 64,
+                                             random.nextInt(SPREAD) - SPREAD / 2.0);
+            anomalies.add(new Anomaly("a" + i, null, location, 8 + random.nextInt(25), 600_000L));
+        }
+        index = anomalies.snapshot();
+        players = StandIns.players(world, POSITIONS, SPREAD, 7);
+    }
+
+    @Benchmark
+    public void queryPerMove(Blackhole blackhole) {
+        Location player = players[next++ & (POSITIONS - 1)];
+        hits.clear();
+        blackhole.consume(index.query(player.getWorld().getUID(), player.getX(), player.getY(), player.getZ(), hits));
+        blackhole.consume(hits.size());
+    }
+}
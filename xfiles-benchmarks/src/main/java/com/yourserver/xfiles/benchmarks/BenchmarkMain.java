@@ -0,0 +1,43 @@
+package com.yourserver.xfiles.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Запуск всех замеров (или выбранных регулярным выражением) с профилировщиком GC.
+// Результаты сохраняются в results/jmh-<версия>-<время>.json для сравнения между сборками:
+//   java -jar target/benchmarks.jar [regex]
+// Для стандартных параметров JMH (-p, -f, -prof ...) используйте org.openjdk.jmh.Main.
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        File results = new File("results", "jmh-" + (version != null ? version : "dev") + "-" + stamp + ".json");
+        results.getParentFile().mkdirs();
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.getPath());
+        if (args.length == 0) {
+            options.include(BenchmarkMain.class.getPackageName() + "\\..*Benchmark");
+        }
+        for (String include : args) {
+            options.include(include);
+        }
+
+        new Runner(options.build()).run();
+        System.out.println("Результаты: " + results.getAbsolutePath());
+    }
+}
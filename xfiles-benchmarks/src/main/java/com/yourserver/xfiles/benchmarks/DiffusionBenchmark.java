@@ -0,0 +1,72 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.RadiationDiffusion;
+import com.yourserver.xfiles.RadiationRaster;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Шаг клеточного автомата распространения радиации: подготовка плиток в вызывающем
+// потоке и расчёт в пуле. Интервал диффузии 1, поэтому каждая операция - полный шаг;
+// перед замером автомат прогревается, чтобы радиация успела расползтись от зон.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffusionBenchmark {
+
+    private static final int SPREAD = 2000;
+    private static final int PRIMING_STEPS = 200;
+    private static final double SPREAD_SPEED = 1.0; // значения по умолчанию из config.yml
+    private static final double DECAY = 0.02;
+
+    @Param({"1", "10", "100"})
+    public int zoneCount;
+
+    private ForkJoinPool pool;
+    private RadiationDiffusion diffusion;
+    private RadiationRaster.View sources;
+    private UUID worldId;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        diffusion = new RadiationDiffusion(pool);
+        worldId = StandIns.world("world").getUID();
+
+        RadiationRaster raster = new RadiationRaster();
+        Random random = new Random(42);
+        for (int i = 0; i < zoneCount; i++) {
+            raster.addZone(worldId, random.nextInt(SPREAD) - SPREAD / 2.0, random.nextInt(SPREAD) - SPREAD / 2.0,
+                           20 + random.nextInt(60), 10 + random.nextInt(90));
+        }
+        sources = raster.snapshot();
+        for (int i = 0; i < PRIMING_STEPS; i++) advance();
+    }
+
+    @TearDown
+    public void tearDown() {
+        diffusion.clear();
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public void step(Blackhole blackhole) {
+        advance();
+        blackhole.consume(diffusion.getLevel(worldId, 0, 0));
+    }
+
+    // Запуск шага и ожидание пула; следующий tick публикует результат и запускает новый шаг
+    private void advance() {
+        diffusion.tick(sources, 1L, SPREAD_SPEED, DECAY);
+        while (diffusion.isStepping()) {
+            Thread.onSpinWait();
+        }
+    }
+}
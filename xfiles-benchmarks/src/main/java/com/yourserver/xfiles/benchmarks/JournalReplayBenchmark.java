@@ -0,0 +1,71 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.StateJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// Чтение журнала состояния при запуске сервера: снимок и хвост журнала из записей
+// размером с типичную запись радиации игрока.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JournalReplayBenchmark {
+
+    private static final int RECORD_SIZE = 29; // тип, UUID, уровень, время
+
+    @Param({"10000", "100000"})
+    public int records;
+
+    private Path directory;
+    private Logger logger;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("xfiles-journal");
+        logger = Logger.getLogger("XFilesBenchmarks");
+        Random random = new Random(42);
+
+        // Половина записей в снимке, половина в журнале
+        StateJournal journal = new StateJournal(directory, logger);
+        journal.replay();
+        List<byte[]> snapshot = Stream.generate(() -> record(random)).limit(records / 2).toList();
+        journal.compact(snapshot);
+        for (int i = records / 2; i < records; i++) {
+            journal.append(record(random));
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<byte[]> replay() throws IOException {
+        StateJournal journal = new StateJournal(directory, logger);
+        List<byte[]> replayed = journal.replay();
+        journal.close();
+        return replayed;
+    }
+
+    private static byte[] record(Random random) {
+        byte[] record = new byte[RECORD_SIZE];
+        random.nextBytes(record);
+        return record;
+    }
+}
@@ -0,0 +1,51 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.RadiationStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Периодическое обновление уровней игроков (бывший updateRadiationEffects): доза каждому
+// облучённому и обход активного множества с фиксацией распада.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RadiationEffectsBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int playerCount;
+
+    @Param({"0", "600"})
+    public double halfLifeSeconds;
+
+    private RadiationStore store;
+    private long now;
+
+    @Setup
+    public void setup() {
+        store = new RadiationStore();
+        store.configureDecay(5.0, halfLifeSeconds);
+        now = 1_000_000L;
+        for (int slot = 0; slot < playerCount; slot++) {
+            store.add(slot, 50 + slot % 200, 1000, now);
+        }
+    }
+
+    @Benchmark
+    public void updateAllPlayers(Blackhole blackhole) {
+        now += 1000L;
+        // Половина игроков стоит в зоне и набирает дозу
+        for (int slot = 0; slot < playerCount; slot += 2) {
+            store.add(slot, 3, 1000, now);
+        }
+        // С конца: остывший слот покидает активное множество перестановкой последнего
+        for (int i = store.getActiveCount() - 1; i >= 0; i--) {
+            int slot = store.getActiveSlot(i);
+            if (store.settle(slot, now)) blackhole.consume(store.getLevel(slot, now));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.RadiationRaster;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Облучение игроков (бывшие checkRadiationExposure и getRadiationLevelAt): уровень и число
+// зон в точке каждого игрока по снимку растра радиационных зон.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RadiationExposureBenchmark {
+
+    private static final int SPREAD = 2000;
+
+    @Param({"1", "10", "100"})
+    public int zoneCount;
+
+    @Param({"10", "100", "500"})
+    public int playerCount;
+
+    private RadiationRaster.View raster;
+    private UUID worldId;
+    private int[] blockX;
+    private int[] blockZ;
+
+    @Setup
+    public void setup() {
+        World world = StandIns.world("world");
+        worldId = world.getUID();
+        RadiationRaster zones = new RadiationRaster();
+        Random random = new Random(42);
+        for (int i = 0; i < zoneCount; i++) {
+            zones.addZone(worldId, random.nextInt(SPREAD) - SPREAD / 2.0, random.nextInt(SPREAD) - SPREAD / 2.0,
+                          20 + random.nextInt(60), 10 + random.nextInt(90));
+        }
+        raster = zones.snapshot();
+
+        Location[] players = StandIns.players(world, playerCount, SPREAD, 7);
+        blockX = new int[playerCount];
+        blockZ = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            blockX[i] = players[i].getBlockX();
+            blockZ[i] = players[i].getBlockZ();
+        }
+    }
+
+    @Benchmark
+    public void exposeAllPlayers(Blackhole blackhole) {
+        for (int i = 0; i < blockX.length; i++) {
+            blackhole.consume(raster.getLevel(worldId, blockX[i], blockZ[i]));
+            blackhole.consume(raster.getZoneCount(worldId, blockX[i], blockZ[i]));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.ReactorPhysics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Шаг реакторов (бывший updateReactor): физика по упакованным массивам, как в движке
+// реакторов. Расплавленный реактор возвращается к начальной температуре, чтобы число
+// реакторов не менялось между итерациями.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactorBenchmark {
+
+    private static final int START_TEMPERATURE = 100;
+
+    @Param({"1", "100", "1000"})
+    public int reactorCount;
+
+    private ReactorPhysics physics;
+    private int[] temperature;
+    private int[] power;
+
+    @Setup
+    public void setup() {
+        physics = new ReactorPhysics(42L);
+        physics.configure(1000, 800, 5, 3, 30, 5);
+        temperature = new int[reactorCount];
+        power = new int[reactorCount];
+        for (int i = 0; i < reactorCount; i++) {
+            temperature[i] = START_TEMPERATURE;
+            power[i] = (i * 37) % 101; // смесь охлаждающихся, стабильных и перегретых
+        }
+    }
+
+    @Benchmark
+    public void stepAllReactors(Blackhole blackhole) {
+        for (int i = 0; i < reactorCount; i++) {
+            int flags = physics.step(temperature, power, i);
+            if ((flags & ReactorPhysics.MELTDOWN) != 0) temperature[i] = START_TEMPERATURE;
+            blackhole.consume(flags);
+        }
+    }
+}
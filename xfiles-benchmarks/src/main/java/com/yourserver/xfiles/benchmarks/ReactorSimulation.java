@@ -0,0 +1,138 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.ReactorManager;
+import com.yourserver.xfiles.ReactorPhysics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Офлайн-стенд для балансировки реакторов: прогоняет ReactorPhysics без сервера и считает
+// вероятность расплавления за горизонт и время до критической температуры и до расплавления.
+// Запуск из собранного модуля замеров:
+//   java -cp xfiles-benchmarks/target/benchmarks.jar com.yourserver.xfiles.benchmarks.ReactorSimulation \
+//       reactors=100000 power=50 steps=17280
+// Остальные параметры совпадают с reactor-settings: max-temperature, critical-temperature,
+// heat-rate, cool-rate, meltdown-chance, event-chance; а также start-temperature и seed.
+// Реакторы делятся на блоки с собственным зерном, поэтому результат не зависит от числа потоков.
+public final class ReactorSimulation {
+
+    private static final int BLOCK = 4096;
+    private static final double SECONDS_PER_STEP = ReactorManager.STEP_TICKS / 20.0;
+
+    private ReactorSimulation() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, Long> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Неверный параметр " + arg + ", ожидается имя=значение");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), Long.parseLong(arg.substring(eq + 1)));
+        }
+
+        int reactors = (int) (long) options.getOrDefault("reactors", 100_000L);
+        int steps = (int) (long) options.getOrDefault("steps", 17_280L); // сутки
+        int power = (int) (long) options.getOrDefault("power", 50L);
+        int start = (int) (long) options.getOrDefault("start-temperature", 100L);
+        long seed = options.getOrDefault("seed", 1L);
+        int[] physics = {
+            (int) (long) options.getOrDefault("max-temperature", 1000L),
+            (int) (long) options.getOrDefault("critical-temperature", 800L),
+            (int) (long) options.getOrDefault("heat-rate", 5L),
+            (int) (long) options.getOrDefault("cool-rate", 3L),
+            (int) (long) options.getOrDefault("meltdown-chance", 30L),
+            (int) (long) options.getOrDefault("event-chance", 5L)
+        };
+
+        int[] firstCritical = new int[reactors];
+        int[] meltdown = new int[reactors];
+        long[] stepped = new long[(reactors + BLOCK - 1) / BLOCK];
+
+        long started = System.nanoTime();
+        IntStream.range(0, stepped.length).parallel().forEach(block -> {
+            int from = block * BLOCK;
+            int to = Math.min(reactors, from + BLOCK);
+            stepped[block] = runBlock(seed + block * 0x9E3779B97F4A7C15L, physics, from, to,
+                steps, power, start, firstCritical, meltdown);
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long total = 0;
+        for (long count : stepped) total += count;
+
+        System.out.printf(Locale.ROOT, "Реакторов: %d, мощность %d%%, горизонт %d шагов (%.1f ч)%n",
+            reactors, power, steps, steps * SECONDS_PER_STEP / 3600.0);
+        System.out.printf(Locale.ROOT, "Шагов модели: %d за %.2f с (%.1f млн шагов/с)%n",
+            total, seconds, total / seconds / 1e6);
+        report("До критической температуры", firstCritical, reactors);
+        report("До расплавления", meltdown, reactors);
+    }
+
+    // Блок реакторов шагает синхронно по массивам, как в живом движке; расплавленные выбывают
+    private static long runBlock(long seed, int[] settings, int from, int to, int steps, int power, int start,
+                                 int[] firstCritical, int[] meltdown) {
+        ReactorPhysics physics = new ReactorPhysics(seed);
+        physics.configure(settings[0], settings[1], settings[2], settings[3], settings[4], settings[5]);
+
+        int size = to - from;
+        int[] temperature = new int[size];
+        int[] powers = new int[size];
+        int[] reactor = new int[size];
+        Arrays.fill(temperature, start);
+        Arrays.fill(powers, power);
+        for (int i = 0; i < size; i++) {
+            reactor[i] = from + i;
+            firstCritical[from + i] = -1;
+            meltdown[from + i] = -1;
+        }
+
+        long stepped = 0;
+        int alive = size;
+        for (int step = 1; step <= steps && alive > 0; step++) {
+            stepped += alive;
+            for (int i = 0; i < alive; i++) {
+                int flags = physics.step(temperature, powers, i);
+                if ((flags & ReactorPhysics.CRITICAL) == 0) continue;
+
+                int r = reactor[i];
+                if (firstCritical[r] < 0) firstCritical[r] = step;
+                if ((flags & ReactorPhysics.MELTDOWN) != 0) {
+                    meltdown[r] = step;
+                    // Последний живой реактор переезжает на место расплавленного
+                    alive--;
+                    temperature[i] = temperature[alive];
+                    powers[i] = powers[alive];
+                    reactor[i] = reactor[alive];
+                    i--;
+                }
+            }
+        }
+        return stepped;
+    }
+
+    private static void report(String title, int[] stepsTo, int reactors) {
+        int[] hits = Arrays.stream(stepsTo).filter(step -> step >= 0).sorted().toArray();
+        System.out.printf(Locale.ROOT, "%s: %d из %d (%.2f%%)%n", title, hits.length, reactors,
+            100.0 * hits.length / reactors);
+        if (hits.length == 0) return;
+
+        double mean = Arrays.stream(hits).average().orElse(0.0);
+        System.out.printf(Locale.ROOT, "  среднее %s, медиана %s, p5 %s, p95 %s, макс %s%n",
+            time(mean), time(percentile(hits, 0.50)), time(percentile(hits, 0.05)),
+            time(percentile(hits, 0.95)), time(hits[hits.length - 1]));
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    private static String time(double steps) {
+        return String.format(Locale.ROOT, "%.1f мин", steps * SECONDS_PER_STEP / 60.0);
+    }
+}
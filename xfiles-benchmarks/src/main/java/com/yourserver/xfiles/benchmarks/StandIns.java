@@ -0,0 +1,46 @@
+package com.yourserver.xfiles.benchmarks;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.UUID;
+
+// Лёгкие заменители объектов сервера для замеров без Bukkit. Мир отвечает только на
+// getUID/getName и границы высоты, игроки представлены своими позициями (Location).
+final class StandIns {
+
+    private StandIns() {
+    }
+
+    static World world(String name) {
+        return world(UUID.nameUUIDFromBytes(name.getBytes()), name);
+    }
+
+    // Мир с заданным UUID (например, из записанной трассы)
+    static World world(UUID id, String name) {
+        return (World) Proxy.newProxyInstance(StandIns.class.getClassLoader(), new Class<?>[]{World.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getUID" -> id;
+                case "getName" -> name;
+                case "getMinHeight" -> -64;
+                case "getMaxHeight" -> 320;
+                case "hashCode" -> id.hashCode();
+                case "equals" -> proxy == args[0];
+                case "toString" -> "World[" + name + "]";
+                default -> throw new UnsupportedOperationException("World." + method.getName());
+            });
+    }
+
+    // Позиции игроков, равномерно разбросанные по квадрату со стороной spread вокруг нуля
+    static Location[] players(World world, int count, int spread, long seed) {
+        Random random = new Random(seed);
+        Location[] players = new Location[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = new Location(world, random.nextInt(spread) - spread / 2.0, 64,
+                                      random.nextInt(spread) - spread / 2.0);
+        }
+        return players;
+    }
+}
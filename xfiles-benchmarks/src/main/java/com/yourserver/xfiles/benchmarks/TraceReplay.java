@@ -0,0 +1,249 @@
+package com.yourserver.xfiles.benchmarks;
+
+import com.yourserver.xfiles.*;
+import com.yourserver.xfiles.AnomalyManager.Anomaly;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Офлайн-прогон записанной трассы движения (/xfiles trace) через расчётную часть плагина:
+// индекс аномалий, растр радиационных зон, распространение радиации и этап расчёта
+// конвейера облучения (ExposureCalculator) - тот же код, что работает на сервере, без
+// Bukkit API. Тики воспроизводятся в speed раз быстрее реального времени (speed=0 - без
+// пауз); в отчёте пропускная способность и перцентили задержки тика и расчёта облучения.
+// Запуск из собранного модуля замеров (классы плагина и Paper API уже внутри):
+//   java -cp xfiles-benchmarks/target/benchmarks.jar com.yourserver.xfiles.benchmarks.TraceReplay \
+//       trace=plugins/XFilesPlugin/traces/trace-20260101-200000.xft speed=10
+// Параметры расчёта совпадают с config.yml: effect-refresh-interval, diffusion-interval,
+// spread-speed, diffusion-decay, а также threads (0 - по числу ядер минус одно).
+public final class TraceReplay {
+
+    private static final double TICK_NANOS = 50_000_000.0;
+
+    private TraceReplay() {
+    }
+
+    // Последние известные позиции игроков трассы по слотам
+    private static final class Players {
+        UUID[] world = new UUID[64];
+        int[] blockX = new int[64];
+        int[] blockY = new int[64];
+        int[] blockZ = new int[64];
+        int[] generation = new int[64];
+        boolean[] dirty = new boolean[64];
+        int highWater;
+
+        void ensure(int slot) {
+            if (slot < world.length) return;
+            int capacity = Math.max(world.length * 2, slot + 1);
+            world = Arrays.copyOf(world, capacity);
+            blockX = Arrays.copyOf(blockX, capacity);
+            blockY = Arrays.copyOf(blockY, capacity);
+            blockZ = Arrays.copyOf(blockZ, capacity);
+            generation = Arrays.copyOf(generation, capacity);
+            dirty = Arrays.copyOf(dirty, capacity);
+        }
+
+        void capture(ExposurePipeline.Snapshot snapshot, boolean all) {
+            for (int slot = 0; slot < highWater; slot++) {
+                if (world[slot] == null || !(all || dirty[slot])) continue;
+                snapshot.add(slot, generation[slot], null, world[slot], blockX[slot] + 0.5, blockY[slot],
+                             blockZ[slot] + 0.5, blockX[slot], blockZ[slot]);
+                dirty[slot] = false;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Неверный параметр " + arg + ", ожидается имя=значение");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        if (!options.containsKey("trace")) {
+            System.err.println("Укажите файл трассы: trace=<путь к .xft>");
+            System.exit(2);
+        }
+
+        Path trace = Path.of(options.get("trace"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        long refreshInterval = Long.parseLong(options.getOrDefault("effect-refresh-interval", "20"));
+        long diffusionInterval = Long.parseLong(options.getOrDefault("diffusion-interval", "20"));
+        double spreadSpeed = Double.parseDouble(options.getOrDefault("spread-speed", "1"));
+        double diffusionDecay = Double.parseDouble(options.getOrDefault("diffusion-decay", "0.02"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "0"));
+
+        ForkJoinPool pool = new ForkJoinPool(threads > 0 ? threads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        AnomalyIndex index = new AnomalyIndex(15);
+        RadiationRaster raster = new RadiationRaster();
+        RadiationDiffusion diffusion = new RadiationDiffusion(pool);
+        // Заражение местности в трассу не пишется: пустое хранилище во временном каталоге
+        Path scratch = Files.createTempDirectory("xfiles-replay");
+        ContaminationStore contamination = new ContaminationStore(scratch, Logger.getLogger("TraceReplay"));
+        ExposureCalculator calculator = new ExposureCalculator();
+        ExposurePipeline.Snapshot snapshot = new ExposurePipeline.Snapshot();
+
+        Players players = new Players();
+        List<World> worlds = new ArrayList<>();
+        Map<String, Anomaly> anomalies = new HashMap<>();
+        Map<Integer, double[]> zones = new HashMap<>(); // мир, x, z, радиус, уровень
+
+        long moves = 0, events = 0, evaluated = 0, enters = 0, stays = 0, doses = 0, late = 0;
+        long[] tickNanos = new long[1 << 16];
+        long[] computeNanos = new long[1 << 16];
+        int ticks = 0, computes = 0;
+
+        long started = System.nanoTime();
+        try (MovementTrace.Reader reader = new MovementTrace.Reader(new FileInputStream(trace.toFile()))) {
+            boolean more = reader.next();
+            for (long tick = 0; more; tick++) {
+                if (speed > 0) {
+                    long due = started + (long) (tick * TICK_NANOS / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } else if (wait < -TICK_NANOS / speed) {
+                        late++;
+                    }
+                }
+                long tickStart = System.nanoTime();
+
+                // События этого тика
+                while (more && reader.tick <= tick) {
+                    switch (reader.type) {
+                        case MovementTrace.WORLD -> {
+                            while (worlds.size() <= reader.world) worlds.add(null);
+                            worlds.set(reader.world, StandIns.world(reader.worldId, reader.name));
+                        }
+                        case MovementTrace.MOVE -> {
+                            int slot = reader.slot;
+                            players.ensure(slot);
+                            players.world[slot] = worlds.get(reader.world).getUID();
+                            players.blockX[slot] = reader.blockX;
+                            players.blockY[slot] = reader.blockY;
+                            players.blockZ[slot] = reader.blockZ;
+                            players.dirty[slot] = true;
+                            moves++;
+                        }
+                        case MovementTrace.JOIN -> {
+                            players.ensure(reader.slot);
+                            players.generation[reader.slot]++;
+                            players.world[reader.slot] = null;
+                            players.highWater = Math.max(players.highWater, reader.slot + 1);
+                        }
+                        case MovementTrace.QUIT -> {
+                            if (reader.slot < players.highWater) players.world[reader.slot] = null;
+                        }
+                        case MovementTrace.ANOMALY_ADD -> {
+                            Location location = new Location(worlds.get(reader.world), reader.x, reader.y, reader.z);
+                            Anomaly anomaly = new Anomaly(reader.name, null, location, reader.radius, 0L);
+                            Anomaly previous = anomalies.put(reader.name, anomaly);
+                            if (previous != null) index.remove(previous);
+                            index.add(anomaly);
+                        }
+                        case MovementTrace.ANOMALY_REMOVE -> {
+                            Anomaly anomaly = anomalies.remove(reader.name);
+                            if (anomaly != null) index.remove(anomaly);
+                        }
+                        case MovementTrace.ZONE_ADD -> {
+                            zones.put(reader.zone, new double[] { reader.world, reader.x, reader.z, reader.radius, reader.level });
+                            raster.addZone(worlds.get(reader.world).getUID(), reader.x, reader.z, reader.radius, reader.level);
+                        }
+                        case MovementTrace.ZONE_REMOVE -> {
+                            double[] zone = zones.remove(reader.zone);
+                            if (zone != null) {
+                                raster.removeZone(worlds.get((int) zone[0]).getUID(), zone[1], zone[2],
+                                                  (int) zone[3], (int) zone[4]);
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                    events++;
+                    more = reader.next();
+                }
+
+                // Как ExposurePipeline.tick: снимок сменивших блок (или всех на тике продления) и расчёт
+                diffusion.tick(raster.snapshot(), diffusionInterval, spreadSpeed, diffusionDecay);
+                boolean refresh = tick % refreshInterval == 0;
+                players.capture(snapshot, refresh);
+                if (snapshot.size > 0) {
+                    snapshot.refresh = refresh;
+                    snapshot.anomalies = index.snapshot();
+                    snapshot.raster = raster.snapshot();
+                    snapshot.diffusion = diffusion.snapshot();
+                    snapshot.contamination = contamination;
+                    evaluated += snapshot.size;
+
+                    long computeStart = System.nanoTime();
+                    pool.submit(() -> calculator.compute(snapshot)).join();
+                    computeNanos = record(computeNanos, computes++, System.nanoTime() - computeStart);
+
+                    for (int p = 0; p < calculator.getPartCount(); p++) {
+                        ExposurePipeline.Batch batch = calculator.getPart(p);
+                        for (int i = 0; i < batch.size; i++) {
+                            switch (batch.kind[i]) {
+                                case ExposurePipeline.Batch.ENTER -> enters++;
+                                case ExposurePipeline.Batch.STAY -> stays++;
+                                default -> doses++;
+                            }
+                        }
+                    }
+                    calculator.reset();
+                }
+                snapshot.reset();
+                tickNanos = record(tickNanos, ticks++, System.nanoTime() - tickStart);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            diffusion.clear();
+            pool.shutdownNow();
+            Files.deleteIfExists(scratch);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Трасса %s: %d тиков (%.1f мин игрового времени), событий %d, переходов между блоками %d%n",
+            trace.getFileName(), ticks, ticks / 1200.0, events, moves);
+        System.out.printf(Locale.ROOT, "Прогон: %.2f с при скорости %s, %.0f тиков/с, %.0f событий/с, %.0f проверок игроков/с%n",
+            seconds, speed > 0 ? speed + "x" : "максимальной", ticks / seconds, events / seconds, evaluated / seconds);
+        System.out.printf(Locale.ROOT, "Действий: входов в аномалии %d, продлений %d, доз радиации %d%n", enters, stays, doses);
+        if (speed > 0) {
+            System.out.printf(Locale.ROOT, "Тиков с опозданием больше периода: %d%n", late);
+        }
+        report("Тик", tickNanos, ticks);
+        report("Расчёт облучения", computeNanos, computes);
+    }
+
+    private static long[] record(long[] samples, int index, long nanos) {
+        if (index == samples.length) samples = Arrays.copyOf(samples, index * 2);
+        samples[index] = nanos;
+        return samples;
+    }
+
+    private static void report(String title, long[] samples, int count) {
+        if (count == 0) return;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%s: p50 %s, p95 %s, p99 %s, p99.9 %s, макс %s (замеров %d)%n", title,
+            micros(sorted, 0.50), micros(sorted, 0.95), micros(sorted, 0.99), micros(sorted, 0.999),
+            String.format(Locale.ROOT, "%.1f мкс", sorted[count - 1] / 1000.0), count);
+    }
+
+    private static String micros(long[] sorted, double p) {
+        return String.format(Locale.ROOT, "%.1f мкс", sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1000.0);
+    }
+}